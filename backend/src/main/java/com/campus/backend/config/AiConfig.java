@@ -1,8 +1,10 @@
 package com.campus.backend.config;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +15,8 @@ import reactor.netty.http.client.HttpClient;
 import reactor.netty.http.HttpProtocol;
 
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class AiConfig {
@@ -30,6 +34,28 @@ public class AiConfig {
                 .build();
     }
 
+    @Bean
+    public StreamingChatLanguageModel streamingChatModel(
+            @Value("${app.openai.api-key}") String apiKey,
+            @Value("${app.openai.chat-model:gpt-4o-mini}") String modelName
+    ) {
+        return OpenAiStreamingChatModel.builder()
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .temperature(0.2)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    /**
+     * Sohbet isteği içindeki bağımsız adımlar (DB okumaları, embedding, vektör arama)
+     * için sanal thread executor'ı. İşler I/O ağırlıklı olduğundan havuz boyutu sınırlanmaz.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService aiExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
     @Bean
     public EmbeddingModel embeddingModel(
             @Value("${app.openai.api-key}") String apiKey,
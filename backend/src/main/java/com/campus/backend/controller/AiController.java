@@ -5,9 +5,15 @@ package com.campus.backend.controller;
 import com.campus.backend.dto.ChatRequest;    // Adım 4.4'te oluşturduk
 import com.campus.backend.dto.ChatResponse;   // Adım 4.4'te oluşturduk
 import com.campus.backend.service.AiService;  // Adım 4.3'te oluşturduk
+import com.campus.backend.service.AiStreamListener;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/ai") // Senin projen /api/ai kullanıyorsa /api/v1/ai olarak güncelleyebilirsin
@@ -19,7 +25,7 @@ public class AiController {
 
     /**
      * Sprint 4: RAG Chat Endpoint'i
-     * @param request Kullanıcının sorusunu içeren JSON body ({ "query": "..." })
+     * @param request Kullanıcının sorusunu içeren JSON body ({ "query": "...", "emotion": "ANXIOUS" }; emotion opsiyonel)
      * @return Yapay zekanın RAG ile ürettiği cevap ({ "answer": "..." })
      */
     @PostMapping("/chat")
@@ -27,9 +33,56 @@ public class AiController {
 
         // 2. ADIM: İstek, 'AiService' (RAG zincirimiz) içindeki 'getAiResponse' metoduna yönlendiriliyor
         // Artık 'chatModel.generate' ÇAĞIRMIYORUZ.
-        String response = aiService.getAiResponse(request.getQuery());
+        String response = aiService.getAiResponse(request.getQuery(), request.getEmotion());
 
         // 3. ADIM: Cevabı 'ChatResponse' DTO'su ile paketliyoruz
         return ResponseEntity.ok(new ChatResponse(response));
     }
-}
\ No newline at end of file
+
+    /**
+     * Akışlı RAG Chat Endpoint'i (Server-Sent Events)
+     * POST /api/v1/ai/chat/stream, body: { "query": "...", "emotion": "..." } (/chat ile aynı), yanıt: text/event-stream
+     * Emitter hemen döner; hazırlık ve akış AiService'te servlet thread'i dışında yürür.
+     * Olaylar:
+     *  - "token": kullanıcıya gösterilecek metin parçası
+     *  - "done" : { "answer": "..." } nihai temiz cevap (kaynak linki dahil)
+     *  - "error": { "error": "..." }
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestBody ChatRequest request) {
+        SseEmitter emitter = new SseEmitter(120_000L);
+
+        aiService.streamAiResponse(request.getQuery(), request.getEmotion(), new AiStreamListener() {
+            @Override
+            public void onToken(String text) {
+                try {
+                    emitter.send(SseEmitter.event().name("token").data(text));
+                } catch (IOException e) {
+                    // istemci bağlantıyı kapattı; cevap yine de tamamlanıp kaydedilecek
+                }
+            }
+
+            @Override
+            public void onComplete(String finalAnswer) {
+                try {
+                    emitter.send(SseEmitter.event().name("done").data(new ChatResponse(finalAnswer)));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                try {
+                    emitter.send(SseEmitter.event().name("error")
+                            .data(Map.of("error", String.valueOf(error.getMessage()))));
+                } catch (IOException ignored) {
+                }
+                emitter.completeWithError(error);
+            }
+        });
+
+        return emitter;
+    }
+}
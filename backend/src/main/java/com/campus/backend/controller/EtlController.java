@@ -1,31 +1,32 @@
 package com.campus.backend.controller;
 
-import com.campus.backend.etl.AnnouncementClient; // Arayüzün yolu
-import com.campus.backend.service.EtlService; // Servisin yolu
+import com.campus.backend.etl.EtlScheduler;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/etl") // Endpoint'in ana yolu
 @RequiredArgsConstructor
 public class EtlController {
-    private final List<AnnouncementClient> clients;
-    private final EtlService etl;
+    private final EtlScheduler scheduler;
 
     @PostMapping("/run/{source}") // /api/etl/run/cs_sakarya gibi
-    public Map<String,Object> run(@PathVariable String source) {
-        // Gelen {source} adına göre (örn: "cs_sakarya")
-        // listeden doğru istemciyi bulur
-        var client = clients.stream()
-                .filter(c -> c.getSourceCode().equals(source))
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Kaynak bulunamadı: " + source));
+    public CompletableFuture<Map<String,Object>> run(@PathVariable String source) {
+        // Gelen {source} adına göre (örn: "cs_sakarya") istemciyi bulur
+        if (scheduler.client(source).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Kaynak bulunamadı: " + source);
+        }
 
-        // Sadece o istemci için EtlService'i çalıştırır
-        return etl.pull(client);
+        // Kaynağın kendi executor'ında çalışır; zamanlanmış çalıştırmayla çakışmaz (gerekirse kuyrukta bekler)
+        try {
+            return scheduler.submit(source);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "ETL zaten çalışıyor: " + source);
+        }
     }
 }
@@ -2,6 +2,7 @@ package com.campus.backend.dto;
 
 public class ChatRequest {
     private String query;
+    private Emotion emotion; // opsiyonel; yoksa UNKNOWN (ses uç noktası EmotionService ile belirler)
 
     // Getter
     public String getQuery() {
@@ -12,4 +13,12 @@ public class ChatRequest {
     public void setQuery(String query) {
         this.query = query;
     }
+
+    public Emotion getEmotion() {
+        return (emotion != null) ? emotion : Emotion.UNKNOWN;
+    }
+
+    public void setEmotion(Emotion emotion) {
+        this.emotion = emotion;
+    }
 }
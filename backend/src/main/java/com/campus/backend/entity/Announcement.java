@@ -44,6 +44,9 @@ public class Announcement {
     @Column(length = 8)
     private String lang;
 
+    @Column(length = 64)
+    private String contentHash; // SHA-256(başlık + temiz gövde); null = özet öncesi eski kayıt
+
     @PrePersist
     void prePersist() {
         if (scrapedAt == null) scrapedAt = Instant.now();
@@ -28,6 +28,11 @@ public class Conversation {
     @Column(name="conversation_key", nullable = false, length = 64)
     private String conversationKey;
 
+    @Column(columnDefinition = "text")
+    private String summary;          // eski turların kayan özeti (ConversationSummarizer); null = henüz yok
+
+    private Instant summarizedUntil; // özete giren son mesajın createdAt'i; sonrakiler ham geçmişte kalır
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
@@ -24,7 +24,9 @@ public class EmbeddingsMap {
     private Long recordId;
 
     @Column(nullable = false, length = 128)
-    private String vectorId;    // Chroma id (örn: ann_123)
+    private String vectorId;    // Chroma id öneki; parçalar: ann_123#0, ann_123#1, ...
+
+    private Integer chunkCount; // null = eski tek vektörlü kayıt (id: ann_123)
 
     @Column(nullable = false)
     private Instant createdAt;
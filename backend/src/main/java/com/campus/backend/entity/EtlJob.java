@@ -18,15 +18,26 @@ public class EtlJob {
     private String jobName;      // ör: pull_muys
 
     @Column(nullable = false)
-    private String status;       // STARTED, SUCCESS, FAILED
+    private String status;       // STARTED, SUCCESS, PARTIAL (bazı kayıtlar çekilemedi), FAILED, INTERRUPTED (süreç yarıda kapandı)
 
     @Column(nullable = false)
     private Instant startedAt;
 
     private Instant finishedAt;
 
+    private Instant queuedAt;    // zamanlayıcı/istek kuyruğa aldığında
+    private Long queueMs;        // kuyrukta bekleme (aynı kaynak çalışırken)
+    private Long runMs;          // startedAt → finishedAt
+
     private Integer itemCount = 0;
 
+    // Kontrol noktası: commit edilmiş son paketteki son kaydın konumu (yarıda kalan iş buradan devam eder)
+    private Integer cursorPage;          // cs_sakarya liste sayfası
+    private Integer cursorCategoryId;    // ogrwebmail_sss kategori id
+    private String cursorExternalId;     // işlenen son external id
+    private Instant checkpointAt;
+    private Long resumedFromJobId;       // bu çalıştırma hangi job'ın kontrol noktasından devam etti
+
     @Column(columnDefinition = "text")
     private String message;
 
@@ -10,12 +10,23 @@ import java.util.List;
 
 @Entity
 @Data
-@Table(name = "faq")
+@Table(name = "faq",
+        uniqueConstraints = @UniqueConstraint(columnNames = "externalId"),
+        indexes = @Index(columnList = "questionKey"))
 public class Faq {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(length = 128)
+    private String externalId;    // kaynaktaki kimlik (ör. SSS modal id'si); elle girilen kayıtlarda boş
+
+    @Column(length = 64)
+    private String questionKey;   // FaqKey.of(question): normalize edilmiş sorunun SHA-256 özeti (eski satırlarda boş)
+
+    @Column(columnDefinition = "text")
+    private String url;
+
     @Column(nullable = false, columnDefinition = "text")
     private String question;
 
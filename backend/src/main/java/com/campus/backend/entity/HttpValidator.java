@@ -0,0 +1,40 @@
+package com.campus.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Crawler'ın URL başına sakladığı HTTP doğrulayıcıları (ETag / Last-Modified).
+ * Bir sonraki çekimde If-None-Match / If-Modified-Since olarak gönderilir; 304 = sayfa değişmemiş.
+ * Yalnızca ETL işi başarıyla commit olunca yazılır (yarım kalan çekim doğrulayıcı bırakmaz).
+ * ETL başında kaynağın tüm doğrulayıcıları tek sorguyla FetchContext'e yüklenir (URL başına SELECT yok).
+ */
+@Entity
+@Data
+@Table(name = "http_validators",
+        indexes = @Index(columnList = "sourceCode"))
+public class HttpValidator {
+    @Id
+    @Column(length = 1024)
+    private String url;
+
+    @Column(length = 512)
+    private String etag;
+
+    @Column(length = 64)
+    private String lastModified;
+
+    @Column(length = 64)
+    private String sourceCode;   // ör: cs_sakarya; null = kaynak bilgisi öncesi eski kayıt (yüklenmez, ilk çekimde yazılır)
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,49 @@
+package com.campus.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Vektör indeksleme kuyruğu (transactional outbox).
+ * ETL duyuruyu yazdığı transaction'da buraya da satır ekler; IndexingOutboxWorker'lar
+ * satırları paketler halinde alıp embed eder ve Chroma'ya yazar, başarıda satırı siler.
+ *
+ * Duyuru başına tek satır: tekrar eklenirse (içerik yine değişti) generation artar ve
+ * deneme sayacı sıfırlanır; işlenmekte olan eski sürümün tamamlanması satırı silmez.
+ * max-attempts kez başarısız olan satır DEAD kalır (yeni bir değişiklik onu tekrar PENDING yapar).
+ */
+@Entity
+@Data
+@Table(
+        name = "indexing_outbox",
+        uniqueConstraints = @UniqueConstraint(columnNames = "announcementId"),
+        indexes = @Index(columnList = "status,nextAttemptAt")
+)
+public class IndexingOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long announcementId;
+
+    @Column(nullable = false, length = 16)
+    private String status;          // PENDING, DEAD
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private Long generation;        // her yeniden eklemede +1
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;  // alınan satırda kira (lease) bitişi, hatada geri çekilme sonu
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
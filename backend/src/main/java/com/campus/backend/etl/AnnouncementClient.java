@@ -6,4 +6,22 @@ import java.util.List;
 public interface AnnouncementClient {
     String getSourceCode();                 // ör: "muys"
     List<RawAnnouncement> fetchLatest() throws Exception;
+
+    /**
+     * Artımlı çekim: bilinen kayıtları ve değişmemiş sayfaları atlar.
+     * Varsayılan: bağlamı yok sayan tam çekim.
+     */
+    default List<RawAnnouncement> fetchLatest(FetchContext context) throws Exception {
+        return fetchLatest();
+    }
+
+    /**
+     * Akışlı çekim: kayıtlar hazır oldukça sink'e verilir, liste bellekte biriktirilmez.
+     * Varsayılan: listeyi çekip sırayla iletir (küçük / sahte kaynaklar için yeterli).
+     */
+    default void fetchLatest(FetchContext context, AnnouncementSink sink) throws Exception {
+        for (RawAnnouncement raw : fetchLatest(context)) {
+            sink.accept(raw);
+        }
+    }
 }
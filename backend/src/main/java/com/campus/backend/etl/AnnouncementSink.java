@@ -0,0 +1,14 @@
+package com.campus.backend.etl;
+
+/**
+ * Akışlı çekimde istemcinin her kaydı ilettiği tüketici.
+ *
+ * accept çağrıyı yapan thread'de, bloklayarak çalışır: tüketici (kaydet + indeksle) yavaşsa
+ * istemci de bekler. Geri basınç (backpressure) bu şekilde sağlanır; istemci yalnızca
+ * sınırlı sayıda kaydı (ör. uçuştaki detay istekleri) bellekte tutar.
+ * accept'ten fırlayan hata çekimi durdurur.
+ */
+@FunctionalInterface
+public interface AnnouncementSink {
+    void accept(RawAnnouncement raw) throws Exception;
+}
@@ -0,0 +1,35 @@
+package com.campus.backend.etl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Duyuru içerik özeti: temizlenmiş başlık + gövde üzerinden SHA-256 (hex, 64 karakter).
+ *
+ * Girdi HtmlCleaner çıktısıdır (DB'de saklanan metinle aynı), bu yüzden eski kayıtların
+ * özeti de DB'deki title/content'ten hesaplanabilir.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    public static String of(String title, String content) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 desteklenmiyor", e);
+        }
+        md.update(nullToEmpty(title).getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0); // başlık/gövde sınırı: "ab"+"c" ile "a"+"bc" aynı özeti vermesin
+        md.update(nullToEmpty(content).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
@@ -0,0 +1,394 @@
+package com.campus.backend.etl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ETL istemcileri için nazik (polite) ve eşzamanlı sayfa çekici.
+ *
+ * - Host başına en fazla max-concurrency eşzamanlı istek (Semaphore)
+ * - Host başına token bucket hız sınırı (requests-per-second, burst): Thread.sleep(sleepMs) yerine
+ * - Bağlantı hatası, 429 ve 5xx için üstel geri çekilmeli (jitter'lı) tekrar; Retry-After'a uyulur
+ * - İstekler sanal thread'lerde çalışır; getAsync ile liste sayfası işlenirken detaylar paralel çekilir
+ * - getIfChanged: saklı ETag/Last-Modified ile koşullu GET; 304 ise sayfa hiç indirilmez/parse edilmez
+ * - Tek paylaşılan HttpClient (bağlantılar yeniden kullanılır) ve thread-safe CookieManager:
+ *   oturum çerezi isteyen kaynaklar (ogrwebmail) eşzamanlı isteklerde aynı oturumu kullanır
+ * - Limitler host bazında ezilebilir: app.crawler.hosts.{host}.max-concurrency / requests-per-second / burst
+ * - app.crawler.archive.mode: record = cevaplar HttpArchive'e de yazılır (kapanışta diske),
+ *   replay = ağa çıkmadan arşivden oynatılır (host limitleri uygulanmaz; benchmark / çevrimdışı test)
+ *
+ * Metrik: crawler.fetch{host, outcome}
+ */
+@Slf4j
+@Component
+public class CrawlerEngine {
+
+    private static final Pattern CHARSET = Pattern.compile("(?i)charset=\"?([^\";\\s]+)");
+
+    private final HttpClient httpClient;
+    private final HttpTransport transport;
+    private final HttpArchive archive;        // record/replay modunda dolu
+    private final Path archivePath;
+    private final boolean replay;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final Environment env;
+
+    @Value("${app.crawler.user-agent:Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36}")
+    private String userAgent;
+
+    @Value("${app.crawler.max-concurrency-per-host:4}")
+    private int maxConcurrencyPerHost;
+
+    @Value("${app.crawler.requests-per-second:5}")
+    private double requestsPerSecond;
+
+    @Value("${app.crawler.burst:5}")
+    private int burst;
+
+    @Value("${app.crawler.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${app.crawler.initial-backoff:500ms}")
+    private Duration initialBackoff;
+
+    @Value("${app.crawler.request-timeout:15s}")
+    private Duration requestTimeout;
+
+    public CrawlerEngine(
+            MeterRegistry registry,
+            Environment env,
+            @Value("${app.crawler.connect-timeout:10s}") Duration connectTimeout,
+            @Value("${app.crawler.archive.mode:off}") String archiveMode,
+            @Value("${app.crawler.archive.path:./data/crawler-archive.bin.gz}") Path archivePath
+    ) throws IOException {
+        this.registry = registry;
+        this.env = env;
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ORIGINAL_SERVER))
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+
+        HttpTransport live = request -> httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        this.archivePath = archivePath;
+        this.replay = "replay".equalsIgnoreCase(archiveMode);
+        switch (archiveMode.toLowerCase()) {
+            case "record" -> {
+                this.archive = HttpArchive.load(archivePath); // var olan arşive eklenir
+                this.transport = archive.recording(live);
+                log.info("Crawler kayıt modunda: {} ({} cevap mevcut)", archivePath, archive.size());
+            }
+            case "replay" -> {
+                this.archive = HttpArchive.load(archivePath);
+                this.transport = archive.replaying();
+                log.info("Crawler oynatma modunda: {} ({} cevap)", archivePath, archive.size());
+            }
+            default -> {
+                this.archive = null;
+                this.transport = live;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        if (archive != null && !replay) {
+            try {
+                archive.save(archivePath);
+            } catch (IOException e) {
+                log.error("Crawler arşivi yazılamadı: {}", archivePath, e);
+            }
+        }
+    }
+
+    /** GET + Jsoup parse (bloklayan). Charset Content-Type'tan, yoksa meta etiketinden belirlenir. */
+    public Document get(String url) throws IOException {
+        HttpResponse<byte[]> response = execute(request(url).GET().build());
+        return parse(response, url);
+    }
+
+    /**
+     * Koşullu GET: URL için context'te saklı doğrulayıcı varsa If-None-Match / If-Modified-Since gönderir.
+     * 304 → Optional.empty() (sayfa değişmemiş). 200 → yeni doğrulayıcılar context'e eklenir;
+     * kalıcı kayıt, çalıştırma başarıyla bitince EtlService tarafından yapılır.
+     */
+    public Optional<Document> getIfChanged(String url, FetchContext context) throws IOException {
+        return sendIfChanged(request(url).GET().build(), context);
+    }
+
+    /** getIfChanged'in ek başlıklı istek alan hali (ör. Referer gereken modal); doğrulayıcı başlıkları eklenir. */
+    public Optional<Document> sendIfChanged(HttpRequest request, FetchContext context) throws IOException {
+        String url = request.uri().toString();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        context.storedValidator(url).ifPresent(v -> {
+            if (v.getEtag() != null) builder.header("If-None-Match", v.getEtag());
+            if (v.getLastModified() != null) builder.header("If-Modified-Since", v.getLastModified());
+        });
+
+        HttpResponse<byte[]> response = execute(builder.build());
+        if (response.statusCode() == 304) {
+            return Optional.empty();
+        }
+        return Optional.of(record(response, url, context));
+    }
+
+    /** Koşulsuz GET; yeni doğrulayıcılar yine context'e eklenir (sonraki çalıştırma koşullu ister). */
+    public Document getFresh(String url, FetchContext context) throws IOException {
+        return record(execute(request(url).GET().build()), url, context);
+    }
+
+    private static Document record(HttpResponse<byte[]> response, String url, FetchContext context) throws IOException {
+        context.recordValidator(url,
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null));
+        return parse(response, url);
+    }
+
+    /** getIfChanged'in sanal thread üzerinde çalışan hali. */
+    public CompletableFuture<Optional<Document>> getIfChangedAsync(String url, FetchContext context) {
+        return sendIfChangedAsync(request(url).GET().build(), context);
+    }
+
+    /** sendIfChanged'in sanal thread üzerinde çalışan hali. */
+    public CompletableFuture<Optional<Document>> sendIfChangedAsync(HttpRequest request, FetchContext context) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendIfChanged(request, context);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /** İsteği host limitleriyle sanal thread'de çalıştırır ve cevabı parse eder. */
+    public CompletableFuture<Document> sendAsync(HttpRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return parse(execute(request), request.uri().toString());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /** User-Agent, Accept ve zaman aşımı ayarlı istek; POST veya ek başlıklar için (bkz. sendAsync). */
+    public HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("User-Agent", userAgent)
+                .header("Accept", "text/html,application/xhtml+xml,*/*");
+    }
+
+    /** get'in sanal thread üzerinde çalışan hali; sıra ve hata yönetimi çağırana aittir. */
+    public CompletableFuture<Document> getAsync(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return get(url);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Host limitleri ve tekrar politikasıyla isteği çalıştırır.
+     * 2xx/3xx dışı (tekrar edilemeyen ya da tekrarları tükenen) cevaplar HttpStatusException olur.
+     */
+    public HttpResponse<byte[]> execute(HttpRequest request) throws IOException {
+        String url = request.uri().toString();
+        String host = request.uri().getHost();
+        HostLimiter limiter = hosts.computeIfAbsent(host == null ? "" : host, this::newLimiter);
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            for (int attempt = 0; ; attempt++) {
+                Duration retryAfter = null;
+                try {
+                    HttpResponse<byte[]> response = limiter.run(() -> transport.send(request));
+
+                    int status = response.statusCode();
+                    if (status < 400) {
+                        outcome = (status == 304) ? "not_modified" : "success";
+                        return response;
+                    }
+                    if ((status != 429 && status < 500) || attempt >= maxRetries) {
+                        outcome = String.valueOf(status);
+                        throw new HttpStatusException("HTTP " + status, status, url);
+                    }
+                    retryAfter = retryAfter(response);
+                    log.warn("Crawler: HTTP {} ({}), tekrar denenecek ({}/{})", status, url, attempt + 1, maxRetries);
+                } catch (HttpStatusException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (attempt >= maxRetries) throw e;
+                    log.warn("Crawler: {} ({}), tekrar denenecek ({}/{})", e.getMessage(), url, attempt + 1, maxRetries);
+                }
+
+                sleep(retryAfter != null ? retryAfter : backoff(attempt));
+            }
+        } finally {
+            Timer.builder("crawler.fetch")
+                    .tag("host", host == null ? "unknown" : host)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private HostLimiter newLimiter(String host) {
+        if (replay) return HostLimiter.UNLIMITED; // arşivden oynatma: karşıda sunucu yok
+        String prefix = "app.crawler.hosts." + host + ".";
+        return new HostLimiter(
+                env.getProperty(prefix + "max-concurrency", Integer.class, maxConcurrencyPerHost),
+                env.getProperty(prefix + "requests-per-second", Double.class, requestsPerSecond),
+                env.getProperty(prefix + "burst", Integer.class, burst));
+    }
+
+    static Document parse(HttpResponse<byte[]> response, String baseUri) throws IOException {
+        String charset = response.headers().firstValue("Content-Type")
+                .map(CHARSET::matcher)
+                .filter(Matcher::find)
+                .map(m -> m.group(1))
+                .orElse(null); // null: Jsoup BOM / <meta charset> ile belirler
+        return Jsoup.parse(new ByteArrayInputStream(response.body()), charset, baseUri);
+    }
+
+    private Duration backoff(int attempt) {
+        long base = initialBackoff.toMillis() << Math.min(attempt, 10);
+        long jitter = ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        return Duration.ofMillis(base + jitter);
+    }
+
+    private static Duration retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+                .map(v -> {
+                    try {
+                        return Duration.ofSeconds(Math.min(60, Long.parseLong(v.trim())));
+                    } catch (NumberFormatException e) {
+                        return null; // HTTP-date biçimi: normal geri çekilme
+                    }
+                })
+                .orElse(null);
+    }
+
+    private static void sleep(Duration d) throws IOException {
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Crawler beklemesi kesildi");
+        }
+    }
+
+    // ------------------- Host limitleri -------------------
+
+    @FunctionalInterface
+    private interface HttpCall<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    /** Host başına eşzamanlılık + hız sınırı. */
+    private static final class HostLimiter {
+        static final HostLimiter UNLIMITED = new HostLimiter(null, null);
+
+        private final Semaphore permits;
+        private final TokenBucket bucket;
+
+        HostLimiter(int maxConcurrency, double ratePerSecond, int burst) {
+            this(new Semaphore(Math.max(1, maxConcurrency), true), new TokenBucket(ratePerSecond, burst));
+        }
+
+        private HostLimiter(Semaphore permits, TokenBucket bucket) {
+            this.permits = permits;
+            this.bucket = bucket;
+        }
+
+        <T> T run(HttpCall<T> call) throws IOException {
+            try {
+                if (permits == null) return call.call();
+                permits.acquire();
+                try {
+                    bucket.acquire();
+                    return call.call();
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Crawler isteği kesildi");
+            }
+        }
+    }
+
+    /**
+     * Klasik token bucket: saniyede rate kadar dolar, en fazla capacity birikir.
+     * acquire() token yoksa bir sonraki token'a kadar bekler (sanal thread'de ucuz).
+     */
+    static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double ratePerSecond, int capacity) {
+            this.ratePerNano = Math.max(ratePerSecond, 0.001) / 1_000_000_000.0;
+            this.capacity = Math.max(1, capacity);
+            this.tokens = this.capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        void acquire() throws InterruptedException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+                    lastRefill = now;
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = (long) Math.ceil((1 - tokens) / ratePerNano);
+                }
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.campus.backend.etl;
 
-import org.jsoup.Jsoup;
+import lombok.extern.slf4j.Slf4j;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -12,9 +12,12 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+@Slf4j
 @Component
 public class CsSakaryaClient implements AnnouncementClient {
 
@@ -28,9 +31,6 @@ public class CsSakaryaClient implements AnnouncementClient {
 
     private static final ZoneId ZONE_ID_ISTANBUL = ZoneId.of("Europe/Istanbul");
 
-    private static final String UA =
-            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
-
     // ✅ Her çalıştırmada sadece son X sayfa çek
     private static final int MAX_PAGES_TO_FETCH = 10;
 
@@ -51,8 +51,21 @@ public class CsSakaryaClient implements AnnouncementClient {
     @Value("${app.etl.cs-sakarya.max-pages:200}")
     private int maxPages; // (genel limit kalsın, ama biz ayrıca 10 sayfa ile sınırlayacağız)
 
-    @Value("${app.etl.cs-sakarya.sleep-ms:300}")
-    private long sleepMs;
+    @Value("${app.etl.cs-sakarya.max-in-flight:16}")
+    private int maxInFlight; // aynı anda beklenen detay sayfası (bellekteki Document sayısı)
+
+    @Value("${app.etl.cs-sakarya.revalidate-known:true}")
+    private boolean revalidateKnown; // gezilen sayfalardaki bilinen duyuruların detayı koşullu GET ile yeniden kontrol edilir; false = düzenleme tespiti yok
+
+    private final CrawlerEngine crawler;
+
+    public CsSakaryaClient(CrawlerEngine crawler) {
+        this.crawler = crawler;
+    }
+
+    /** Liste sayfasından çıkarılan bilgiler + arka planda çekilmekte olan detay sayfası (boş: 304, değişmemiş). */
+    private record PendingDetail(int page, String listUrl, String externalId, String title, Instant date, String detailUrl,
+                                 CompletableFuture<Optional<Document>> detail) {}
 
     @Override
     public String getSourceCode() {
@@ -61,110 +74,179 @@ public class CsSakaryaClient implements AnnouncementClient {
 
     @Override
     public List<RawAnnouncement> fetchLatest() throws Exception {
-        List<RawAnnouncement> announcements = new ArrayList<>();
+        return fetchLatest(FetchContext.empty());
+    }
+
+    @Override
+    public List<RawAnnouncement> fetchLatest(FetchContext context) throws Exception {
+        List<RawAnnouncement> out = new ArrayList<>();
+        fetchLatest(context, out::add);
+        return out;
+    }
+
+    /**
+     * Liste sayfaları sırayla gezilir; her "Görüntüle" linkinin detay sayfası hemen
+     * CrawlerEngine'e (async) verilir, liste ayrıştırma beklemeden devam eder.
+     * Host başına eşzamanlılık ve hız sınırı CrawlerEngine'dedir (sleep yok).
+     * Sonuçlar liste sırasıyla sink'e verilir; sıra ve seenExternalIds tekilleştirmesi korunur.
+     * Uçuştaki detay sayısı max-in-flight'ı aşınca en eskisi beklenip iletilir (sınırlı bellek).
+     *
+     * Artımlı: liste en yeniden eskiye sıralı olduğu için
+     *  - bilinen (DB'de olan) duyuruların detayı koşullu GET ile yeniden istenir (revalidate-known,
+     *    varsayılan açık); 304 dönerse sink'e hiç verilmez, 200 dönerse içerik özeti EtlService'te
+     *    karşılaştırılır (düzenlenen duyuru güncellenir). Düzenleme liste sayfasını değiştirmeyebileceği
+     *    için bu modda liste sayfaları koşulsuz çekilir,
+     *  - yeni duyuru içermeyen ilk sayfada sayfalama biter (revalidate-known açıkken ilk sayfada değil;
+     *    düzenlemeler için bir sonraki sayfa da kontrol edilir: en yeni iki sayfalık sınırlı pencere),
+     *  - revalidate-known=false ise bilinen duyuruların detayı hiç istenmez ve liste sayfası 304
+     *    dönerse (son başarılı çalıştırmadan beri değişmemiş) sayfalama biter.
+     *
+     * Tekrar deneme: önceki çalıştırma PARTIAL bittiyse (context.isRecrawl) liste sayfaları koşulsuz
+     * çekilir ve "yeni duyuru yok" kuralı uygulanmaz; liste bitene ya da sayfa limitine kadar gezilir.
+     * Çekilemeyen duyuru DB'de olmadığı için hangi sayfada olursa olsun yeni kayıt olarak tekrar istenir.
+     *
+     * Devam: önceki çalıştırma yarıda kaldıysa kontrol noktasındaki sayfadan başlanır (yeni duyurular
+     * listeyi yalnızca ileri kaydırır, atlanan bir şey olmaz). O sayfa tamamen işlenmiş olabileceği
+     * için "yeni duyuru yok" kuralı devam sayfasında uygulanmaz.
+     */
+    @Override
+    public void fetchLatest(FetchContext context, AnnouncementSink sink) throws Exception {
+        Deque<PendingDetail> pending = new ArrayDeque<>();
+        int emitted = 0;
         Set<String> seenExternalIds = new HashSet<>();
 
-        int page = 1;
+        int firstPage = context.resumeFrom()
+                .map(FetchContext.Cursor::page)
+                .filter(p -> p != null && p > 1)
+                .orElse(1);
+        int page = firstPage;
+        long start = System.currentTimeMillis();
 
-        System.out.println("====== CsSakaryaClient: fetchLatest BAŞLADI ======");
-        System.out.println("CsSakaryaClient: testMode=" + testMode
-                + ", maxPages(config)=" + maxPages
-                + ", maxPagesToFetch(fixed)=" + MAX_PAGES_TO_FETCH
-                + ", sleepMs=" + sleepMs);
+        log.info("CsSakaryaClient: fetchLatest başladı (testMode={}, maxPages={}, maxPagesToFetch={}, bilinen={}{})",
+                testMode, maxPages, MAX_PAGES_TO_FETCH, context.knownCount(),
+                firstPage > 1 ? ", devam sayfası=" + firstPage : "");
 
         // ✅ Gerçek limit: config maxPages ile fixed 10 sayfanın min'i
         int effectiveMaxPages = Math.min(maxPages, MAX_PAGES_TO_FETCH);
 
         while (true) {
             if (page > effectiveMaxPages) {
-                System.out.println("CsSakaryaClient: sayfa limiti doldu (effectiveMaxPages=" + effectiveMaxPages + "), durduruluyor.");
+                log.info("CsSakaryaClient: sayfa limiti doldu (effectiveMaxPages={}), durduruluyor", effectiveMaxPages);
                 break;
             }
 
             String url = BASE_URL + "/0/" + page;
-            System.out.println("CsSakaryaClient: Sayfa çekiliyor: " + url);
-
-            Document doc = Jsoup.connect(url)
-                    .userAgent(UA)
-                    .timeout(15_000)
-                    .get();
+            log.debug("CsSakaryaClient: sayfa çekiliyor: {}", url);
+
+            // PARTIAL sonrası eksik duyuru, yeniden doğrulamada düzenlenen duyuru değişmemiş bir liste sayfasında olabilir
+            Optional<Document> fetched = (context.isRecrawl() || revalidateKnown)
+                    ? Optional.of(crawler.getFresh(url, context))
+                    : crawler.getIfChanged(url, context);
+            if (fetched.isEmpty()) {
+                log.info("CsSakaryaClient: sayfa {} değişmemiş (304), durduruluyor", page);
+                break;
+            }
+            Document doc = fetched.get();
 
             Elements viewLinks = doc.select("a:matchesOwn(^\\s*Görüntüle\\s*$)");
-            System.out.println("CsSakaryaClient: Sayfa " + page + " - Görüntüle link sayısı: " + viewLinks.size());
+            log.debug("CsSakaryaClient: sayfa {} - Görüntüle link sayısı: {}", page, viewLinks.size());
 
             if (viewLinks.isEmpty()) {
-                System.out.println("CsSakaryaClient: Görüntüle linki bulunamadı (muhtemelen sayfa bitti), durduruluyor.");
+                log.info("CsSakaryaClient: sayfa {}'de Görüntüle linki yok (muhtemelen liste bitti), durduruluyor", page);
                 break;
             }
 
+            int newOnPage = 0;
             for (Element viewLink : viewLinks) {
                 String detailUrl = viewLink.absUrl("href");
                 if (detailUrl == null || detailUrl.isBlank()) continue;
 
                 String externalId = extractExternalId(detailUrl);
                 if (externalId == null) {
-                    System.err.println("externalId çıkarılamadı, atlanıyor: " + detailUrl);
+                    log.warn("CsSakaryaClient: externalId çıkarılamadı, atlanıyor: {}", detailUrl);
                     continue;
                 }
                 if (!seenExternalIds.add(externalId)) continue;
+                boolean known = context.isKnown(externalId);
+                if (known && !revalidateKnown) continue; // zaten DB'de: detay isteği yok
+
+                Element container = findReasonableContainer(viewLink);
+                String containerText = (container != null) ? container.text() : "";
 
-                try {
-                    Element container = findReasonableContainer(viewLink);
-                    String containerText = (container != null) ? container.text() : "";
-
-                    String title = extractTitleNearLink(container, detailUrl);
-                    if (title == null || title.isBlank()) {
-                        title = fallbackTitle(containerText, externalId);
-                    }
-
-                    Instant date = parseDateFromContainerText(containerText);
-
-                    Document detailDoc = Jsoup.connect(detailUrl)
-                            .userAgent(UA)
-                            .timeout(15_000)
-                            .get();
-
-                    Element contentElement = detailDoc.selectFirst("div.blog-post-inner");
-                    String htmlContent = (contentElement != null)
-                            ? contentElement.html()
-                            : "<p>İçerik bulunamadı.</p>";
-
-                    RawAnnouncement raw = new RawAnnouncement(
-                            externalId,
-                            title,
-                            htmlContent,
-                            detailUrl,
-                            "duyuru",
-                            date
-                    );
-
-                    announcements.add(raw);
-                    System.out.println("CsSakaryaClient: İşleniyor -> " + title);
-
-                } catch (Exception e) {
-                    System.err.println("Duyuru parse edilirken hata: " + e.getMessage() + " (URL: " + detailUrl + ")");
+                String title = extractTitleNearLink(container, detailUrl);
+                if (title == null || title.isBlank()) {
+                    title = fallbackTitle(containerText, externalId);
+                }
+
+                Instant date = parseDateFromContainerText(containerText);
+
+                pending.add(new PendingDetail(page, url, externalId, title, date, detailUrl,
+                        crawler.getIfChangedAsync(detailUrl, context)));
+                if (!known) newOnPage++;
+
+                while (pending.size() > maxInFlight) {
+                    if (emit(pending.poll(), context, sink)) emitted++;
                 }
             }
 
             if (testMode) {
-                System.out.println("CsSakaryaClient: TEST MODE: Sadece ilk sayfa işlendi, durduruluyor.");
+                log.info("CsSakaryaClient: test modu, yalnızca ilk sayfa işlendi");
+                break;
+            }
+
+            // normal çalıştırmada yeni duyurusu olmayan ilk sayfada dur; devamda ve yeniden doğrulamada bir sonraki sayfaya,
+            // PARTIAL sonrası tekrar denemede sayfa limitine kadar bak
+            boolean stopHere = !context.isRecrawl() && (page != firstPage || (firstPage == 1 && !revalidateKnown));
+            if (newOnPage == 0 && stopHere) {
+                log.info("CsSakaryaClient: sayfa {} yeni duyuru içermiyor, durduruluyor", page);
                 break;
             }
 
             page++;
+        }
 
-            if (sleepMs > 0) {
-                try {
-                    Thread.sleep(sleepMs);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
+        // Kalan detayları liste sırasıyla ilet
+        while (!pending.isEmpty()) {
+            if (emit(pending.poll(), context, sink)) emitted++;
+        }
+
+        log.info("CsSakaryaClient: fetchLatest bitti, {} duyuru ({} ms)", emitted, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Detayı bekler ve sink'e verir. Değişmemişse (304) sessizce atlar; sink hatası yukarı fırlar.
+     * Detay çekilemediyse loglayıp atlar ve liste sayfasını başarısız işaretler: o sayfanın yeni
+     * doğrulayıcısı kaydedilmez (sonraki çalıştırma 304 alıp duyuruyu kaçırmaz), çalıştırma PARTIAL biter.
+     */
+    private boolean emit(PendingDetail p, FetchContext context, AnnouncementSink sink) throws Exception {
+        Document detailDoc;
+        try {
+            Optional<Document> detail = p.detail().join();
+            if (detail.isEmpty()) return false;
+            detailDoc = detail.get();
+        } catch (CompletionException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            log.warn("CsSakaryaClient: duyuru detayı çekilemedi: {} (URL: {})", cause.getMessage(), p.detailUrl());
+            context.markFailed(p.listUrl());
+            return false;
         }
 
-        System.out.println("====== CsSakaryaClient: fetchLatest BİTTİ. Toplam çekilen: " + announcements.size() + " ======");
-        return announcements;
+        Element contentElement = detailDoc.selectFirst("div.blog-post-inner");
+        String htmlContent = (contentElement != null)
+                ? contentElement.html()
+                : "<p>İçerik bulunamadı.</p>";
+
+        log.debug("CsSakaryaClient: işleniyor -> {}", p.title());
+        context.atPage(p.page());
+        sink.accept(new RawAnnouncement(
+                p.externalId(),
+                p.title(),
+                htmlContent,
+                p.detailUrl(),
+                "duyuru",
+                p.date()
+        ));
+        return true;
     }
 
     private Element findReasonableContainer(Element link) {
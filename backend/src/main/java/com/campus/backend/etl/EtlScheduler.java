@@ -1,28 +1,135 @@
 package com.campus.backend.etl; // veya .service
 
 import com.campus.backend.service.EtlService; // EtlService'inizin yolu
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Kaynak başına ETL zamanlayıcısı.
+ *
+ * - Her kaynağın kendi tek thread'lik executor'ı vardır: yavaş bir kaynak (ogrwebmail_sss)
+ *   diğerlerini bekletmez, toplam süre en yavaş kaynağın süresi olur.
+ * - Aynı kaynak zaten çalışıyorsa en fazla bir çalıştırma kuyruğa alınır; kuyruk doluysa
+ *   istek reddedilir (zamanlanmış tetik atlanır, EtlController 409 döner).
+ * - Sıklık kaynak bazında: app.etl.schedule.{kaynak}.interval (ör. 6h) ya da .cron;
+ *   ikisi de yoksa app.etl.schedule.cron (varsayılan her gün 03:30).
+ *
+ * Kuyrukta bekleme ve çalışma süreleri EtlJob'a yazılır (queueMs, runMs).
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class EtlScheduler {
-    private final List<AnnouncementClient> clients; // Otomatik olarak [FakeClient, CsSakaryaClient] listesini alır
+    private final Map<String, AnnouncementClient> clients = new LinkedHashMap<>();
+    private final Map<String, ThreadPoolExecutor> executors = new LinkedHashMap<>();
     private final EtlService etl;
+    private final TaskScheduler taskScheduler;
+    private final Environment env;
 
     // cron="saniye dakika saat gün ay gün(hafta)"
-    @Scheduled(cron = "0 30 3 * * *", zone = "Europe/Istanbul") // her gün sabah 03:30
-    public void daily() {
-        log.info("Günlük ETL Job başlatılıyor...");
-        // Listedeki TÜM istemcileri (hem 'muys' hem 'cs_sakarya') sırayla çalıştırır
+    @Value("${app.etl.schedule.cron:0 30 3 * * *}")
+    private String defaultCron; // her gün sabah 03:30
+
+    @Value("${app.etl.schedule.zone:Europe/Istanbul}")
+    private String zone;
+
+    @Value("${app.etl.schedule.enabled:true}")
+    private boolean enabled;
+
+    public EtlScheduler(List<AnnouncementClient> clients, EtlService etl, TaskScheduler taskScheduler, Environment env) {
+        this.etl = etl;
+        this.taskScheduler = taskScheduler;
+        this.env = env;
         for (var c : clients) {
-            log.info("ETL çalıştırılıyor: {}", c.getSourceCode());
-            etl.pull(c);
+            this.clients.put(c.getSourceCode(), c);
+            this.executors.put(c.getSourceCode(), newSourceExecutor(c.getSourceCode()));
+        }
+    }
+
+    /** 1 çalışan + 1 kuyrukta; fazlası RejectedExecutionException (çakışan çalıştırma yok). */
+    private static ThreadPoolExecutor newSourceExecutor(String sourceCode) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                r -> {
+                    Thread t = new Thread(r, "etl-" + sourceCode);
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleAll() {
+        if (!enabled) {
+            log.info("ETL zamanlayıcı kapalı (app.etl.schedule.enabled=false)");
+            return;
+        }
+        for (String source : clients.keySet()) {
+            String prefix = "app.etl.schedule." + source;
+            Duration interval = env.getProperty(prefix + ".interval", Duration.class);
+            Runnable trigger = () -> submitScheduled(source);
+
+            if (interval != null) {
+                taskScheduler.scheduleAtFixedRate(trigger, Instant.now().plus(interval), interval);
+                log.info("ETL {} her {} çalışacak", source, interval);
+            } else {
+                String cron = env.getProperty(prefix + ".cron", defaultCron);
+                taskScheduler.schedule(trigger, new CronTrigger(cron, ZoneId.of(zone)));
+                log.info("ETL {} cron: {} ({})", source, cron, zone);
+            }
         }
-        log.info("Günlük ETL Job tamamlandı.");
+    }
+
+    private void submitScheduled(String source) {
+        try {
+            submit(source);
+        } catch (RejectedExecutionException e) {
+            log.warn("ETL {} zaten çalışıyor ve kuyrukta bekleyen var, zamanlanmış çalıştırma atlandı", source);
+        }
+    }
+
+    public Optional<AnnouncementClient> client(String source) {
+        return Optional.ofNullable(clients.get(source));
+    }
+
+    /**
+     * Kaynağı kendi executor'ında çalıştırır. Kaynak çalışıyorsa kuyruğa alınır (en fazla bir).
+     *
+     * @throws IllegalArgumentException kaynak yoksa
+     * @throws RejectedExecutionException kaynak çalışıyor ve kuyrukta zaten bekleyen var
+     */
+    public CompletableFuture<Map<String, Object>> submit(String source) {
+        AnnouncementClient client = clients.get(source);
+        if (client == null) throw new IllegalArgumentException("Kaynak bulunamadı: " + source);
+
+        Instant queuedAt = Instant.now();
+        return CompletableFuture.supplyAsync(() -> {
+            log.info("ETL çalıştırılıyor: {}", source);
+            return etl.pull(client, queuedAt);
+        }, executors.get(source));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
     }
 }
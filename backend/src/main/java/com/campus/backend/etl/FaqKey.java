@@ -0,0 +1,55 @@
+package com.campus.backend.etl;
+
+import com.campus.backend.vector.TurkishTokenizer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * SSS soru anahtarı: normalize edilmiş soru metninin SHA-256 özeti (hex, 64 karakter).
+ *
+ * Normalizasyon: Türkçe küçük harf, aksan katlama (ş→s, ı→i ...), harf/rakam dışı her şey
+ * boşluk, ardışık boşluklar teke. Böylece "Şifremi nasıl sıfırlarım?" ile
+ * "sifremi nasil sifirlarim" aynı anahtarı verir.
+ */
+public final class FaqKey {
+
+    private static final Locale LOCALE_TR = Locale.forLanguageTag("tr-TR");
+
+    private FaqKey() {
+    }
+
+    public static String normalize(String question) {
+        if (question == null) return "";
+        String s = TurkishTokenizer.fold(question.toLowerCase(LOCALE_TR));
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) sb.append(' ');
+                sb.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Boş (yalnızca noktalama) sorular için null: anahtarsız kayıt tam eşleşmeye girmez. */
+    public static String of(String question) {
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) return null;
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 desteklenmiyor", e);
+        }
+        return HexFormat.of().formatHex(md.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.campus.backend.etl;
+
+import com.campus.backend.entity.HttpValidator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Artımlı çekim bağlamı: EtlService bir çalıştırma için oluşturur, istemciye verir.
+ *
+ * - knownExternalIds: bu kaynak için DB'de zaten olan external id'ler; istemci bunların detayını
+ *   ya hiç çekmez ya da koşullu GET ile yeniden kontrol eder (değişiklik tespiti EtlService'te
+ *   içerik özetiyle yapılır), yalnızca bilinen kayıtlardan oluşan sayfada sayfalamayı bırakır.
+ * - storedValidators: kaynağın kayıtlı ETag/Last-Modified değerleri; EtlService çalıştırma başında
+ *   tek sorguyla yükler, CrawlerEngine koşullu istekte buradan okur.
+ * - pendingValidators: çalıştırma sırasında alınan yeni ETag/Last-Modified değerleri;
+ *   EtlService bunları tüm paketler commit edildikten sonra, ayrı bir saveAll ile kaydeder.
+ *   Arada süreç düşerse doğrulayıcılar kaybolur; sonraki çalıştırma sayfaları koşulsuz çeker ve
+ *   zaten kayıtlı duyuruları özetle eler (fazladan istek, veri kaybı yok). Bir kaydı çekilemeyen sayfanın
+ *   doğrulayıcısı markFailed ile düşürülür (sonraki çalıştırma 304 alıp kaydı atlamasın) ve
+ *   çalıştırma eksik (PARTIAL) sayılır.
+ * - recrawl: önceki çalıştırma PARTIAL bitti; istemci liste sayfalarını koşulsuz çeker ve yeni kayıt
+ *   içermeyen sayfada durmaz, böylece çekilemeyen kayıt hangi sayfada olursa olsun tekrar denenir.
+ * - resumeFrom: önceki çalıştırma yarıda kaldıysa son kontrol noktası; istemci sayfalamaya /
+ *   kategorilere baştan değil buradan başlar.
+ * - atPage / atCategory: istemci sink'e bir kayıt vermeden önce o kaydın konumunu bildirir;
+ *   EtlService paket commit edilince bu konumu EtlJob'a kontrol noktası olarak yazar.
+ */
+public final class FetchContext {
+
+    private final Set<String> knownExternalIds;
+    private final Map<String, HttpValidator> storedValidators;
+    private final Map<String, HttpValidator> pendingValidators = new ConcurrentHashMap<>();
+    private final Cursor resumeFrom;
+    private final boolean recrawl;
+    private volatile Integer page;
+    private volatile Integer categoryId;
+    private volatile boolean incomplete;
+
+    /** Çekimdeki konum; alanlar kaynağa göre boş olabilir. */
+    public record Cursor(Integer page, Integer categoryId, String externalId) {}
+
+    public FetchContext(Set<String> knownExternalIds) {
+        this(knownExternalIds, null);
+    }
+
+    public FetchContext(Set<String> knownExternalIds, Cursor resumeFrom) {
+        this(knownExternalIds, resumeFrom, List.of(), false);
+    }
+
+    public FetchContext(Set<String> knownExternalIds, Cursor resumeFrom, Collection<HttpValidator> storedValidators,
+                        boolean recrawl) {
+        this.knownExternalIds = Set.copyOf(knownExternalIds);
+        this.resumeFrom = resumeFrom;
+        this.recrawl = recrawl;
+        this.storedValidators = new HashMap<>(storedValidators.size() * 2);
+        for (HttpValidator v : storedValidators) this.storedValidators.put(v.getUrl(), v);
+    }
+
+    /** Bilinen kayıt yok: tam çekim. */
+    public static FetchContext empty() {
+        return new FetchContext(Set.of());
+    }
+
+    public boolean isKnown(String externalId) {
+        return externalId != null && knownExternalIds.contains(externalId);
+    }
+
+    public int knownCount() {
+        return knownExternalIds.size();
+    }
+
+    public Optional<Cursor> resumeFrom() {
+        return Optional.ofNullable(resumeFrom);
+    }
+
+    public boolean isRecrawl() {
+        return recrawl;
+    }
+
+    public void atPage(int page) {
+        this.page = page;
+    }
+
+    public void atCategory(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /** Sink'e verilen son kaydın konumu. */
+    public Cursor position(String externalId) {
+        return new Cursor(page, categoryId, externalId);
+    }
+
+    Optional<HttpValidator> storedValidator(String url) {
+        return Optional.ofNullable(storedValidators.get(url));
+    }
+
+    void recordValidator(String url, String etag, String lastModified) {
+        if (etag == null && lastModified == null) return;
+        HttpValidator v = new HttpValidator();
+        v.setUrl(url);
+        v.setEtag(etag);
+        v.setLastModified(lastModified);
+        pendingValidators.put(url, v);
+    }
+
+    public Collection<HttpValidator> pendingValidators() {
+        return pendingValidators.values();
+    }
+
+    /** url'den (listeleyen sayfa) gelen bir kayıt çekilemedi: doğrulayıcısı kaydedilmez, çalıştırma eksik. */
+    public void markFailed(String url) {
+        if (url != null) pendingValidators.remove(url);
+        incomplete = true;
+    }
+
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+}
@@ -5,7 +5,20 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class HtmlCleaner {
+
+    // Çıktı tamponu thread başına bir kez ayrılır ve tekrar kullanılır
+    private static final ThreadLocal<HtmlTextExtractor> EXTRACTOR = ThreadLocal.withInitial(HtmlTextExtractor::new);
+
+    /**
+     * HTML etiketlerini atar, entity'leri çözer, çoklu boşlukları tek boşluğa indirir.
+     * DOM kurmadan tek geçişte çalışır; çıktısı {@link #toTextWithDom(String)} ile aynıdır.
+     */
     public String toText(String html) {
+        return EXTRACTOR.get().extract(html == null ? "" : html);
+    }
+
+    /** Eski yol (tam Jsoup DOM + regex); karşılaştırma testi ve benchmark için. */
+    static String toTextWithDom(String html) {
         String safe = (html == null ? "" : html);
         // HTML etiketlerini at, çoklu boşlukları tek boşluğa indir
         return Jsoup.parse(safe).text().replaceAll("\\s+", " ").trim();
@@ -0,0 +1,497 @@
+package com.campus.backend.etl;
+
+import org.jsoup.nodes.Entities;
+
+/**
+ * DOM kurmadan, girdiyi tek geçişte tarayan HTML → düz metin dönüştürücü.
+ *
+ * Çıktı, HtmlCleaner'ın eski yolu olan {@code Jsoup.parse(html).text().replaceAll("\\s+", " ").trim()}
+ * ile aynı olacak şekilde Jsoup'un kurallarını izler:
+ * - etiketler atılır; script/style içeriği hiç yazılmaz, xmp/iframe/noembed/noframes içeriği ham metindir
+ * - blok etiket ve br başında, blok bitiminden sonra metin/satır içi etiket gelirse boşluk eklenir
+ * - entity'ler Jsoup tokenizer'ı gibi çözülür (noktalı virgülsüz temel entity'ler, sayısal, windows-1252)
+ * - boşluklar tek boşluğa indirilir; &amp;nbsp; boşluk sayılır, sıfır genişlikli boşluk ve yumuşak tire düşer
+ *   (pre/textarea/title/CDATA içinde bu ikisi korunur)
+ *
+ * Ağaç kurulmadığı için ağaç kurucunun düzelttiği bozuk HTML'de (tablo dışına taşan metin,
+ * yanlış iç içe etiketler) boşluk yerleşimi Jsoup'tan ayrılabilir; metin ve sırası aynıdır.
+ *
+ * Thread-safe değildir: çıktı tamponu çağrılar arasında yeniden kullanılır (HtmlCleaner thread başına bir tane tutar).
+ */
+final class HtmlTextExtractor {
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    // Etiket bayrakları (Jsoup Tag tablosundan)
+    private static final int BLOCK = 1;          // Tag.isBlock: başında boşluk
+    private static final int INLINE = 1 << 1;    // !Tag.formatAsBlock: blok bitiminden hemen sonra gelirse boşluk
+    private static final int VOID = 1 << 2;      // bitiş etiketi yok (hr, meta, ...)
+    private static final int PRE = 1 << 3;       // boşluklar korunur
+    private static final int DROP_RAW = 1 << 4;  // script/style: içerik metin değil
+    private static final int KEEP_RAW = 1 << 5;  // içerik ham metin (entity çözülmez)
+    private static final int RCDATA = 1 << 6;    // içerik metin, entity çözülür, boşluk korunur
+    private static final int PLAINTEXT = 1 << 7; // sonrası tamamen metin
+    private static final int TABLE_PART = 1 << 8; // tablo dışında Jsoup tarafından yok sayılır
+    private static final int TABLE = 1 << 9;
+    private static final int BR = 1 << 10;
+    private static final int STRUCTURE = 1 << 11; // html/head/body bitişleri ağaçta düğüm kapatmaz
+
+    private static final int[] WIN1252 = {
+            0x20AC, 0x0081, 0x201A, 0x0192, 0x201E, 0x2026, 0x2020, 0x2021,
+            0x02C6, 0x2030, 0x0160, 0x2039, 0x0152, 0x008D, 0x017D, 0x008F,
+            0x0090, 0x2018, 0x2019, 0x201C, 0x201D, 0x2022, 0x2013, 0x2014,
+            0x02DC, 0x2122, 0x0161, 0x203A, 0x0153, 0x009D, 0x017E, 0x0178,
+    };
+
+    private final StringBuilder out = new StringBuilder(1024);
+
+    private boolean pendingSpace;  // görünür karakterden önce tek boşluk yazılacak
+    private boolean blockEnded;    // son düğüm bir bloktu; sonraki kardeş metin/satır içi ise boşluk
+    private int preDepth;
+    private int tableDepth;
+    private boolean preserveRaw;   // title/textarea/CDATA/plaintext içeriği
+
+    String extract(String html) {
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            out.setLength(0);
+            out.trimToSize();
+        }
+        out.setLength(0);
+        pendingSpace = false;
+        blockEnded = false;
+        preDepth = 0;
+        tableDepth = 0;
+        preserveRaw = false;
+
+        if (html == null) return "";
+
+        final int n = html.length();
+        int i = 0;
+        while (i < n) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                i = tag(html, i + 1, n);
+            } else if (c == '&') {
+                i = reference(html, i + 1, n);
+            } else {
+                text(c);
+                i++;
+            }
+        }
+
+        // String.trim() ile aynı: baş/sondaki <= ' ' karakterler
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) <= ' ') end--;
+        int start = 0;
+        while (start < end && out.charAt(start) <= ' ') start++;
+        return out.substring(start, end);
+    }
+
+    // -------------------------
+    // Metin
+    // -------------------------
+
+    private void text(char c) {
+        if (blockEnded) {
+            pendingSpace = true;
+            blockEnded = false;
+        }
+        boolean preserve = preserveRaw || preDepth > 0;
+        if (isSpace(c) || (c == '\u00A0' && !preserve)) {
+            pendingSpace = true;
+            return;
+        }
+        if (!preserve && (c == '\u200B' || c == '\u00AD')) return;
+
+        if (pendingSpace && out.length() > 0) out.append(' ');
+        pendingSpace = false;
+        out.append(c);
+    }
+
+    private void codePoint(int cp) {
+        if (Character.isBmpCodePoint(cp)) {
+            text((char) cp);
+        } else {
+            text(Character.highSurrogate(cp));
+            text(Character.lowSurrogate(cp));
+        }
+    }
+
+    /** Regex \s: [ \t\n\x0B\f\r] */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /** Jsoup tokenizer boşluğu (etiket içi) */
+    private static boolean isTagSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // -------------------------
+    // Entity'ler (Tokeniser.consumeCharacterReference)
+    // -------------------------
+
+    /** i: '&' sonrası. Çözülemezse '&' metin olarak yazılır ve i'den devam edilir. */
+    private int reference(String s, int i, int n) {
+        if (i >= n) {
+            text('&');
+            return i;
+        }
+        char c = s.charAt(i);
+        if (isTagSpace(c) || c == '<' || c == '&') {
+            text('&');
+            return i;
+        }
+
+        if (c == '#') {
+            int k = i + 1;
+            boolean hex = k < n && (s.charAt(k) == 'x' || s.charAt(k) == 'X');
+            if (hex) k++;
+            int digitsStart = k;
+            int value = 0;
+            while (k < n) {
+                int d = digit(s.charAt(k), hex);
+                if (d < 0) break;
+                if (value <= 0x10FFFF) value = value * (hex ? 16 : 10) + d; // üstü zaten geçersiz
+                k++;
+            }
+            if (k == digitsStart) {
+                text('&');
+                return i;
+            }
+            if (k < n && s.charAt(k) == ';') k++;
+
+            if (value > 0x10FFFF) {
+                value = 0xFFFD;
+            } else if (value >= 0x80 && value < 0x80 + WIN1252.length) {
+                value = WIN1252[value - 0x80];
+            }
+            codePoint(value);
+            return k;
+        }
+
+        int k = i;
+        while (k < n && isRefLetter(s.charAt(k))) k++;
+        while (k < n && s.charAt(k) >= '0' && s.charAt(k) <= '9') k++;
+        String name = s.substring(i, k);
+        boolean semicolon = k < n && s.charAt(k) == ';';
+
+        if (!(Entities.isBaseNamedEntity(name) || (semicolon && Entities.isNamedEntity(name)))) {
+            text('&');
+            return i;
+        }
+        String value = Entities.getByName(name);
+        for (int j = 0; j < value.length(); j++) text(value.charAt(j));
+        return semicolon ? k + 1 : k;
+    }
+
+    /** Yalnızca ASCII rakamlar (Character.digit diğer alfabelerin rakamlarını da kabul eder). */
+    private static int digit(char c, boolean hex) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (!hex) return -1;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    private static boolean isRefLetter(char c) {
+        return isAsciiAlpha(c) || Character.isLetter(c);
+    }
+
+    // -------------------------
+    // Etiketler
+    // -------------------------
+
+    /** i: '<' sonrası. */
+    private int tag(String s, int i, int n) {
+        if (i >= n) {
+            text('<');
+            return i;
+        }
+        char c = s.charAt(i);
+        if (c == '!') return markup(s, i + 1, n);
+        if (c == '/') return endTag(s, i + 1, n);
+        if (c == '?') return comment(s.indexOf('>', i), n);
+        if (!isAsciiAlpha(c)) {
+            text('<');
+            return i;
+        }
+
+        int nameEnd = tagNameEnd(s, i, n);
+        int flags = lookup(s, i, nameEnd);
+        int next = skipAttributes(s, nameEnd, n);
+        if (next < 0) return n; // dosya sonunda yarım etiket: Jsoup atar
+
+        if ((flags & TABLE_PART) != 0 && tableDepth == 0) return next;
+        startTag(flags);
+
+        if ((flags & (DROP_RAW | KEEP_RAW | RCDATA)) != 0) return rawContent(s, next, n, i, nameEnd, flags);
+        if ((flags & PLAINTEXT) != 0) {
+            preserveRaw = true;
+            for (int k = next; k < n; k++) text(rawChar(s.charAt(k)));
+            return n;
+        }
+        return next;
+    }
+
+    private void startTag(int flags) {
+        if (blockEnded) {
+            if ((flags & INLINE) != 0) pendingSpace = true;
+            blockEnded = false;
+        }
+        if ((flags & (BLOCK | BR)) != 0) pendingSpace = true;
+        if ((flags & PRE) != 0) preDepth++;
+        if ((flags & TABLE) != 0) tableDepth++;
+        if ((flags & VOID) != 0 && (flags & BLOCK) != 0) blockEnded = true;
+    }
+
+    /** i: "</" sonrası. */
+    private int endTag(String s, int i, int n) {
+        if (i >= n) {
+            text('<');
+            text('/');
+            return n;
+        }
+        char c = s.charAt(i);
+        if (c == '>') return i + 1;                      // "</>" yok sayılır
+        if (!isAsciiAlpha(c)) return comment(s.indexOf('>', i), n);
+
+        int nameEnd = tagNameEnd(s, i, n);
+        int flags = lookup(s, i, nameEnd);
+        int next = skipAttributes(s, nameEnd, n);
+        if (next < 0) return n;
+
+        if ((flags & BR) != 0) {                          // </br> → <br>
+            startTag(flags);
+        } else if ((flags & STRUCTURE) != 0 || ((flags & TABLE_PART) != 0 && tableDepth == 0)) {
+            // ağaçta karşılığı yok
+        } else {
+            endElement(flags);
+        }
+        return next;
+    }
+
+    private void endElement(int flags) {
+        blockEnded = (flags & BLOCK) != 0;
+        if ((flags & PRE) != 0 && preDepth > 0) preDepth--;
+        if ((flags & TABLE) != 0 && tableDepth > 0) tableDepth--;
+    }
+
+    /** i: "<!" sonrası. */
+    private int markup(String s, int i, int n) {
+        if (s.startsWith("--", i)) {
+            int k = i + 2;
+            if (k < n && s.charAt(k) == '>') return comment(k, n);        // <!-->
+            if (s.startsWith("->", k)) return comment(k + 1, n);          // <!--->
+            int end = s.indexOf("--", k);
+            while (end >= 0) {
+                if (s.startsWith("-->", end)) return comment(end + 2, n);
+                if (s.startsWith("--!>", end)) return comment(end + 3, n);
+                end = s.indexOf("--", end + 1);
+            }
+            return comment(-1, n);
+        }
+        if (s.startsWith("[CDATA[", i)) {
+            int end = s.indexOf("]]>", i + 7);
+            int stop = end < 0 ? n : end;
+            if (blockEnded) {            // CDATA bir metin düğümüdür (boş olsa da)
+                pendingSpace = true;
+                blockEnded = false;
+            }
+            preserveRaw = true;
+            for (int k = i + 7; k < stop; k++) text(s.charAt(k));
+            preserveRaw = false;
+            return end < 0 ? n : end + 3;
+        }
+        // DOCTYPE ve diğer bildirimler: '>' e kadar
+        return comment(s.indexOf('>', i), n);
+    }
+
+    /** Yorum/bildirim düğümü: metin değildir, önceki bloğun kardeşi olarak boşluk doğurmaz. */
+    private int comment(int closeIndex, int n) {
+        blockEnded = false;
+        return closeIndex < 0 ? n : closeIndex + 1;
+    }
+
+    /** script/style/title/textarea/xmp... içeriği: uygun bitiş etiketine kadar. */
+    private int rawContent(String s, int i, int n, int nameStart, int nameEnd, int flags) {
+        int nameLen = nameEnd - nameStart;
+        int end = i;
+        int close = -1;
+        while ((end = s.indexOf("</", end)) >= 0) {
+            int after = end + 2 + nameLen;
+            if (after < n && s.regionMatches(true, end + 2, s, nameStart, nameLen)) {
+                char c = s.charAt(after);
+                if (isTagSpace(c) || c == '/' || c == '>') {
+                    close = end;
+                    break;
+                }
+            }
+            end += 2;
+        }
+        int stop = close < 0 ? n : close;
+
+        if ((flags & DROP_RAW) == 0) {
+            boolean wasPreserve = preserveRaw;
+            preserveRaw = (flags & RCDATA) != 0;
+            for (int k = i; k < stop; ) {
+                char c = s.charAt(k);
+                if (c == '&' && (flags & RCDATA) != 0) {
+                    k = reference(s, k + 1, stop);
+                } else {
+                    text(rawChar(c));
+                    k++;
+                }
+            }
+            preserveRaw = wasPreserve;
+        }
+        if (close < 0) return n;
+
+        int next = skipAttributes(s, close + 2 + nameLen, n);
+        endElement(flags);
+        return next < 0 ? n : next;
+    }
+
+    private static char rawChar(char c) {
+        return c == '\u0000' ? '\uFFFD' : c;
+    }
+
+    /** Etiket adı sonu: boşluk, '/', '>' ya da '<' (Jsoup CharacterReader.consumeTagName). */
+    private static int tagNameEnd(String s, int i, int n) {
+        while (i < n) {
+            char c = s.charAt(i);
+            if (isTagSpace(c) || c == '/' || c == '>' || c == '<') break;
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Öznitelikleri atlar (tırnak içindeki '>' etiketi bitirmez). Etiketten sonraki konumu döner;
+     * dosya sonunda biten yarım etiket için -1.
+     */
+    private static int skipAttributes(String s, int i, int n) {
+        while (true) {
+            // BeforeAttributeName
+            while (i < n && (isTagSpace(s.charAt(i)) || s.charAt(i) == '/')) i++;
+            if (i >= n) return -1;
+            char c = s.charAt(i);
+            if (c == '>') return i + 1;
+            if (c == '<') return i;
+
+            // AttributeName (ilk karakter ne olursa olsun ada dahil)
+            i++;
+            while (i < n) {
+                c = s.charAt(i);
+                if (isTagSpace(c) || c == '/' || c == '=' || c == '>') break;
+                i++;
+            }
+            // AfterAttributeName
+            while (i < n && isTagSpace(s.charAt(i))) i++;
+            if (i >= n) return -1;
+            c = s.charAt(i);
+            if (c == '>') return i + 1;
+            if (c != '=') continue; // '/' ya da yeni öznitelik
+
+            // BeforeAttributeValue
+            i++;
+            while (i < n && isTagSpace(s.charAt(i))) i++;
+            if (i >= n) return n; // Jsoup bu durumda etiketi üretir
+            c = s.charAt(i);
+            if (c == '>') return i + 1;
+            if (c == '"' || c == '\'') {
+                int close = s.indexOf(c, i + 1);
+                if (close < 0) return -1;
+                i = close + 1;
+            } else {
+                while (i < n && !isTagSpace(s.charAt(i)) && s.charAt(i) != '>') i++;
+                if (i >= n) return -1;
+            }
+        }
+    }
+
+    // -------------------------
+    // Etiket tablosu
+    // -------------------------
+
+    private static final int TABLE_SIZE = 512; // 2'nin kuvveti, doluluk < %50
+    private static final String[] NAMES = new String[TABLE_SIZE];
+    private static final int[] FLAGS = new int[TABLE_SIZE];
+
+    static {
+        // Tag.blockTags
+        for (String t : new String[]{
+                "html", "head", "body", "frameset", "script", "noscript", "style", "meta", "link", "title", "frame",
+                "noframes", "section", "nav", "aside", "hgroup", "header", "footer", "p", "h1", "h2", "h3", "h4", "h5", "h6",
+                "ul", "ol", "pre", "div", "blockquote", "hr", "address", "figure", "figcaption", "form", "fieldset", "ins",
+                "del", "dl", "dt", "dd", "li", "table", "caption", "thead", "tfoot", "tbody", "colgroup", "col", "tr", "th",
+                "td", "video", "audio", "canvas", "details", "menu", "plaintext", "template", "article", "main",
+                "svg", "math", "center", "dir", "applet", "marquee", "listing"}) {
+            add(t, BLOCK);
+        }
+        // Tag.inlineTags + formatAsInlineTags: formatAsBlock = false
+        for (String t : new String[]{
+                "object", "base", "font", "tt", "i", "b", "u", "big", "small", "em", "strong", "dfn", "code", "samp", "kbd",
+                "var", "cite", "abbr", "time", "acronym", "mark", "ruby", "rt", "rp", "rtc", "a", "img", "br", "wbr", "map", "q",
+                "sub", "sup", "bdo", "iframe", "embed", "span", "input", "select", "textarea", "label", "button", "optgroup",
+                "option", "legend", "datalist", "keygen", "output", "progress", "meter", "area", "param", "source", "track",
+                "summary", "command", "device", "basefont", "bgsound", "menuitem", "data", "bdi", "s", "strike", "nobr",
+                "rb", "text", "mi", "mo", "msup", "mn", "mtext",
+                "title", "p", "h1", "h2", "h3", "h4", "h5", "h6", "pre", "address", "li", "th", "td", "script", "style",
+                "ins", "del"}) {
+            add(t, INLINE);
+        }
+        for (String t : new String[]{"meta", "link", "frame", "hr", "col"}) add(t, VOID);
+        add("pre", PRE);
+        add("script", DROP_RAW);
+        add("style", DROP_RAW);
+        for (String t : new String[]{"xmp", "iframe", "noembed", "noframes"}) add(t, KEEP_RAW);
+        add("title", RCDATA);
+        add("textarea", RCDATA);
+        add("plaintext", PLAINTEXT);
+        for (String t : new String[]{"caption", "col", "colgroup", "tbody", "td", "tfoot", "th", "thead", "tr"}) add(t, TABLE_PART);
+        add("table", TABLE);
+        add("br", BR);
+        for (String t : new String[]{"html", "head", "body"}) add(t, STRUCTURE);
+    }
+
+    private static void add(String name, int flag) {
+        int slot = hash(name, 0, name.length()) & (TABLE_SIZE - 1);
+        while (NAMES[slot] != null && !NAMES[slot].equals(name)) slot = (slot + 1) & (TABLE_SIZE - 1);
+        NAMES[slot] = name;
+        FLAGS[slot] |= flag;
+    }
+
+    /** Ad [start, end) için bayraklar (ASCII büyük/küçük harf duyarsız, bilinmeyen etiket: 0). Bellek ayırmaz. */
+    private static int lookup(String s, int start, int end) {
+        int len = end - start;
+        int slot = hash(s, start, end) & (TABLE_SIZE - 1);
+        String name;
+        while ((name = NAMES[slot]) != null) {
+            if (name.length() == len && equalsLower(s, start, name)) return FLAGS[slot];
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return 0;
+    }
+
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + lower(s.charAt(i));
+        return h ^ (h >>> 9);
+    }
+
+    private static boolean equalsLower(String s, int start, String lowerName) {
+        for (int i = 0; i < lowerName.length(); i++) {
+            if (lower(s.charAt(start + i)) != lowerName.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static char lower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+}
@@ -0,0 +1,175 @@
+package com.campus.backend.etl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLSession;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Crawler cevaplarının diskteki arşivi (kayıt / oynatma).
+ *
+ * - record: canlı cevaplar (liste, detay, SSS modalı...) "METHOD url" anahtarıyla saklanır; aynı
+ *   istek tekrar gelirse son cevap kalır. Arşiv CrawlerEngine kapanırken yazılır.
+ * - replay: istekler ağa çıkmadan arşivden cevaplanır; arşivde olmayan istek 404 döner.
+ *
+ * Dosya biçimi: gzip içinde sıralı kayıtlar (method, url, status, seçili başlıklar, gövde).
+ * Yalnızca içerik için gereken başlıklar tutulur; çerez ve sunucu başlıkları atılır.
+ */
+@Slf4j
+final class HttpArchive {
+
+    private static final int MAGIC = 0x48415231; // "HAR1"
+    private static final List<String> KEPT_HEADERS =
+            List.of("content-type", "etag", "last-modified", "location", "retry-after");
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    record Entry(String method, String url, int status, Map<String, List<String>> headers, byte[] body) {}
+
+    /** Dosya yoksa boş arşiv. */
+    static HttpArchive load(Path path) throws IOException {
+        HttpArchive archive = new HttpArchive();
+        if (!Files.exists(path)) return archive;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path), 64 * 1024)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Crawler arşivi değil: " + path);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String method = in.readUTF();
+                String url = in.readUTF();
+                int status = in.readInt();
+                int headerCount = in.readUnsignedShort();
+                Map<String, List<String>> headers = new LinkedHashMap<>();
+                for (int h = 0; h < headerCount; h++) {
+                    headers.computeIfAbsent(in.readUTF(), k -> new ArrayList<>()).add(in.readUTF());
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                archive.put(new Entry(method, url, status, headers, body));
+            }
+        }
+        return archive;
+    }
+
+    /** Geçici dosyaya yazıp yerine taşır (yarım arşiv kalmaz). */
+    synchronized void save(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "crawler-archive", ".tmp");
+
+        List<Entry> snapshot = new ArrayList<>(entries.values());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(snapshot.size());
+            for (Entry e : snapshot) {
+                out.writeUTF(e.method());
+                out.writeUTF(e.url());
+                out.writeInt(e.status());
+                int headerCount = e.headers().values().stream().mapToInt(List::size).sum();
+                out.writeShort(headerCount);
+                for (var h : e.headers().entrySet()) {
+                    for (String v : h.getValue()) {
+                        out.writeUTF(h.getKey());
+                        out.writeUTF(v);
+                    }
+                }
+                out.writeInt(e.body().length);
+                out.write(e.body());
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Crawler arşivi yazıldı: {} cevap → {}", snapshot.size(), path);
+    }
+
+    void put(Entry entry) {
+        entries.put(key(entry.method(), entry.url()), entry);
+    }
+
+    Optional<Entry> get(String method, String url) {
+        return Optional.ofNullable(entries.get(key(method, url)));
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /** Canlı transport'un cevaplarını arşive de yazar. */
+    HttpTransport recording(HttpTransport live) {
+        return request -> {
+            HttpResponse<byte[]> response = live.send(request);
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : KEPT_HEADERS) {
+                List<String> values = response.headers().allValues(name);
+                if (!values.isEmpty()) headers.put(name, values);
+            }
+            byte[] body = (response.body() != null) ? response.body() : new byte[0];
+            put(new Entry(request.method(), request.uri().toString(), response.statusCode(), headers, body));
+            return response;
+        };
+    }
+
+    /** Ağa çıkmadan arşivden cevaplar; kayıt yoksa 404. */
+    HttpTransport replaying() {
+        return request -> {
+            Entry e = get(request.method(), request.uri().toString()).orElse(null);
+            return (e != null)
+                    ? new ArchivedResponse(request, e.status(), HttpHeaders.of(e.headers(), (k, v) -> true), e.body())
+                    : new ArchivedResponse(request, 404, HttpHeaders.of(Map.of(), (k, v) -> true), new byte[0]);
+        };
+    }
+
+    private static String key(String method, String url) {
+        return method + ' ' + url;
+    }
+
+    private record ArchivedResponse(HttpRequest request, int statusCode, HttpHeaders headers, byte[] body)
+            implements HttpResponse<byte[]> {
+
+        @Override
+        public Optional<HttpResponse<byte[]>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
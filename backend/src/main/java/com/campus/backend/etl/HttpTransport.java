@@ -0,0 +1,14 @@
+package com.campus.backend.etl;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * CrawlerEngine'in isteği fiilen gönderdiği katman: canlı HttpClient, kaydeden ya da
+ * arşivden oynatan (bkz. HttpArchive). Host limitleri ve tekrar politikası bunun üstündedir.
+ */
+@FunctionalInterface
+interface HttpTransport {
+    HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException;
+}
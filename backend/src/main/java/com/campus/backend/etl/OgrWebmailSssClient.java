@@ -1,30 +1,29 @@
 package com.campus.backend.etl;
 
-import org.jsoup.Connection;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.net.http.HttpRequest;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Component
 public class OgrWebmailSssClient implements AnnouncementClient {
 
-    private static final String UA =
-            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
-
     // fallback keşif/parse için
     private static final Pattern DIGITS = Pattern.compile("(\\d+)");
     private static final Pattern SSSORULAR_CALL = Pattern.compile("SSSorular\\((\\d+)\\)");
     private static final Pattern SSSMODAL_CALL = Pattern.compile("SssModal\\((\\d+)\\)");
 
+    private static final int TEST_MODE_ITEMS = 20;
+
     @Value("${app.etl.ogrwebmail-sss.base-url:https://ogrwebmail.sakarya.edu.tr}")
     private String baseUrl;
 
@@ -46,8 +45,23 @@ public class OgrWebmailSssClient implements AnnouncementClient {
     @Value("${app.etl.ogrwebmail-sss.max-items:2000}")
     private int maxItems;
 
-    @Value("${app.etl.ogrwebmail-sss.sleep-ms:200}")
-    private long sleepMs;
+    @Value("${app.etl.ogrwebmail-sss.max-in-flight:32}")
+    private int maxInFlight; // aynı anda beklenen modal isteği (hız sınırı CrawlerEngine'de, host başına)
+
+    // true: bilinen soruların modalı da koşullu GET ile istenir (304 = değişmemiş, sink'e verilmez);
+    // değişenler EtlService'te içerik özetiyle yakalanır. false: düzenleme tespiti yok
+    @Value("${app.etl.ogrwebmail-sss.revalidate-known:true}")
+    private boolean revalidateKnown;
+
+    private final CrawlerEngine crawler;
+
+    public OgrWebmailSssClient(CrawlerEngine crawler) {
+        this.crawler = crawler;
+    }
+
+    /** Kategori listesinden çıkarılan soru + arka planda çekilmekte olan modal (boş: 304, değişmemiş). */
+    private record PendingModal(int categoryId, String externalId, String title, String modalUrl,
+                                CompletableFuture<Optional<Document>> modal) {}
 
     @Override
     public String getSourceCode() {
@@ -56,135 +70,197 @@ public class OgrWebmailSssClient implements AnnouncementClient {
 
     @Override
     public List<RawAnnouncement> fetchLatest() throws Exception {
+        return fetchLatest(FetchContext.empty());
+    }
+
+    @Override
+    public List<RawAnnouncement> fetchLatest(FetchContext context) throws Exception {
+        List<RawAnnouncement> out = new ArrayList<>();
+        fetchLatest(context, out::add);
+        return out;
+    }
+
+    /**
+     * Artımlı: DB'de olan soruların modalı koşullu GET ile istenir, 304 dönerse atlanır
+     * (revalidate-known=false ise hiç istenmez; kategoriler sıralı değil, sayfalama yok).
+     * Akışlı: her soru modalı çekilir çekilmez sink'e verilir; 2000 kayıt bellekte biriktirilmez.
+     *
+     * Eşzamanlı: tüm kategori listeleri (POST) baştan CrawlerEngine'e verilir, modallar da liste
+     * işlenirken async istenir; en fazla max-in-flight modal beklenir. Eşzamanlılık ve hız sınırı
+     * CrawlerEngine'in host limitleridir (sleep yok), oturum çerezi paylaşılan CookieManager'dadır.
+     * Sonuçlar kategori/liste sırasıyla ve çağıran thread'de sink'e verilir; max-items ve test-mode
+     * (20 kayıt) sıralı çekimdeki gibi başarıyla çekilen ilk N soruyu kapsar.
+     *
+     * Devam: önceki çalıştırma yarıda kaldıysa kontrol noktasındaki kategoriden başlanır; o kategoride
+     * son işlenen soruya kadar olanlar atlanır (revalidate-known açıkken bile tekrar istenmez).
+     */
+    @Override
+    public void fetchLatest(FetchContext context, AnnouncementSink sink) throws Exception {
         System.out.println("====== OgrWebmailSssClient: fetchLatest BAŞLADI ======");
         System.out.println("baseUrl=" + baseUrl);
         System.out.println("menuUrl=" + menuUrl);
-        System.out.println("testMode=" + testMode + ", maxItems=" + maxItems + ", sleepMs=" + sleepMs);
+        System.out.println("testMode=" + testMode + ", maxItems=" + maxItems + ", maxInFlight=" + maxInFlight);
 
+        long start = System.currentTimeMillis();
         String landingUrl = (menuUrl != null && !menuUrl.isBlank()) ? menuUrl : (baseUrl + "/");
+        int limit = testMode ? Math.min(maxItems, TEST_MODE_ITEMS) : maxItems;
 
-        // ✅ Cookie jar (tarayıcı gibi davranmak için)
-        Map<String, String> cookies = new HashMap<>();
+        // Oturum çerezi (tarayıcı gibi davranmak için) + gerekirse kategori keşfi
+        Document landing = null;
         try {
-            Connection.Response landing = Jsoup.connect(landingUrl)
-                    .userAgent(UA)
-                    .timeout(15_000)
-                    .method(Connection.Method.GET)
-                    .execute();
-            cookies.putAll(landing.cookies());
+            landing = crawler.get(landingUrl);
         } catch (Exception e) {
-            System.err.println("Landing cookie alma başarısız: " + e.getMessage());
+            System.err.println("Landing sayfası alınamadı: " + e.getMessage());
         }
 
         List<Integer> categoryIds = parseCategoryIds(categoryIdsCsv);
-        if (categoryIds.isEmpty()) {
-            categoryIds = discoverCategoryIds(landingUrl, cookies);
+        if (categoryIds.isEmpty() && landing != null) {
+            categoryIds = discoverCategoryIds(landing);
         }
         if (categoryIds.isEmpty()) {
             System.err.println("Kategori bulunamadı. En azından 2 deneniyor.");
             categoryIds = List.of(2);
         }
 
-        System.out.println("Kullanılacak categoryIds=" + categoryIds);
+        FetchContext.Cursor resumeFrom = context.resumeFrom()
+                .filter(c -> c.categoryId() != null)
+                .orElse(null);
+        int resumeIndex = (resumeFrom != null) ? categoryIds.indexOf(resumeFrom.categoryId()) : -1;
+        if (resumeIndex > 0) {
+            categoryIds = categoryIds.subList(resumeIndex, categoryIds.size());
+        }
+        // Kontrol noktasındaki soru listede bulunana kadar atlanır (yoksa kategori baştan işlenir)
+        String skipUntil = (resumeIndex >= 0) ? resumeFrom.externalId() : null;
 
-        List<RawAnnouncement> out = new ArrayList<>();
-        Set<String> seenExternalIds = new HashSet<>();
-        AtomicInteger counter = new AtomicInteger(0);
+        System.out.println("Kullanılacak categoryIds=" + categoryIds
+                + (resumeIndex >= 0 ? " (devam: catId=" + resumeFrom.categoryId() + ", son=" + skipUntil + ")" : ""));
 
+        // ✅ DevTools: POST — tüm kategoriler aynı anda
+        Map<Integer, CompletableFuture<Document>> lists = new LinkedHashMap<>();
         for (Integer catId : categoryIds) {
             if (catId == null) continue;
+            HttpRequest request = crawler.request(baseUrl + "/Home/SSSorular/" + catId)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .header("X-Requested-With", "XMLHttpRequest")
+                    .header("Referer", landingUrl)
+                    .build();
+            lists.put(catId, crawler.sendAsync(request));
+        }
 
-            if (counter.get() >= maxItems) break;
+        Set<String> seenExternalIds = new HashSet<>();
+        Deque<PendingModal> pending = new ArrayDeque<>();
+        int emitted = 0;
 
-            String listUrl = baseUrl + "/Home/SSSorular/" + catId;
-            System.out.println("Kategori listesi (POST) çekiliyor: " + listUrl);
+        try {
+            for (Map.Entry<Integer, CompletableFuture<Document>> entry : lists.entrySet()) {
+                if (emitted >= limit) break;
+                int catId = entry.getKey();
 
-            // ✅ DevTools: POST
-            Connection.Response listResp = Jsoup.connect(listUrl)
-                    .userAgent(UA)
-                    .timeout(15_000)
-                    .method(Connection.Method.POST)
-                    .cookies(cookies)
-                    .ignoreHttpErrors(true)
-                    .followRedirects(true)
-                    .header("Accept", "text/html,*/*")
-                    .header("X-Requested-With", "XMLHttpRequest")
-                    .referrer(landingUrl)
-                    .execute();
-
-            cookies.putAll(listResp.cookies());
-            Document listDoc = listResp.parse();
-
-            // Liste içindeki soru butonlarını yakala (tek selector’a bağlı kalma)
-            Elements candidates = new Elements();
-            candidates.addAll(listDoc.select("button[data-sss-id]"));
-            candidates.addAll(listDoc.select("[data-sss-id]"));
-            candidates.addAll(listDoc.select("button[onclick*=SssModal], a[onclick*=SssModal]"));
-            candidates.addAll(listDoc.select("a[href*=/Home/SssModal/]"));
-
-            // duplicate elementleri temizle
-            LinkedHashSet<Element> unique = new LinkedHashSet<>(candidates);
-            System.out.println("catId=" + catId + " soru adayı=" + unique.size());
-
-            for (Element el : unique) {
-                if (counter.get() >= maxItems) {
-                    System.out.println("maxItems limitine ulaşıldı (" + maxItems + "), durduruluyor.");
-                    return out;
+                Document listDoc;
+                try {
+                    listDoc = entry.getValue().join();
+                } catch (CompletionException e) {
+                    Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+                    System.err.println("Kategori listesi alınamadı catId=" + catId + " err=" + cause.getMessage());
+                    context.markFailed(null); // kategorinin soruları bu çalıştırmada gelmedi: PARTIAL
+                    continue;
                 }
 
-                String sssId = extractSssId(el);
-                if (sssId == null || sssId.isBlank()) continue;
+                LinkedHashSet<Element> unique = questionElements(listDoc);
+                System.out.println("catId=" + catId + " soru adayı=" + unique.size());
 
-                String title = extractTitle(el);
-                String externalId = "sss-" + sssId;
+                boolean skipping = skipUntil != null && catId == resumeFrom.categoryId()
+                        && unique.stream().anyMatch(el -> skipUntil.equals("sss-" + extractSssId(el)));
+                for (Element el : unique) {
+                    String sssId = extractSssId(el);
+                    if (sssId == null || sssId.isBlank()) continue;
 
-                if (!seenExternalIds.add(externalId)) continue;
+                    String externalId = "sss-" + sssId;
+                    if (skipping) {
+                        skipping = !externalId.equals(skipUntil);
+                        continue;
+                    }
+                    if (!seenExternalIds.add(externalId)) continue;
+                    if (!revalidateKnown && context.isKnown(externalId)) continue; // zaten DB'de
 
-                String modalUrl = baseUrl + "/Home/SssModal/" + sssId;
+                    // Başarısız modallar sayılmaz: yer açılana kadar bekleyenler iletilir
+                    while (emitted + pending.size() >= limit && !pending.isEmpty()) {
+                        if (emit(pending.poll(), context, sink)) emitted++;
+                    }
+                    if (emitted >= limit) break;
 
-                try {
+                    String modalUrl = baseUrl + "/Home/SssModal/" + sssId;
                     // ✅ DevTools: GET
-                    Connection.Response modalResp = Jsoup.connect(modalUrl)
-                            .userAgent(UA)
-                            .timeout(15_000)
-                            .method(Connection.Method.GET)
-                            .cookies(cookies)
-                            .ignoreHttpErrors(true)
-                            .followRedirects(true)
-                            .header("Accept", "text/html,*/*")
-                            .referrer(landingUrl)
-                            .execute();
-
-                    cookies.putAll(modalResp.cookies());
-                    Document modalDoc = modalResp.parse();
-
-                    String htmlContent = extractModalHtml(modalDoc);
-
-                    out.add(new RawAnnouncement(
-                            externalId,
-                            title,
-                            htmlContent,
-                            modalUrl,
-                            "sss",
-                            Instant.now()
-                    ));
-
-                    int c = counter.incrementAndGet();
-                    if (testMode && c >= 20) {
-                        System.out.println("TEST MODE: 20 kayıt sonrası durduruldu.");
-                        return out;
+                    HttpRequest request = crawler.request(modalUrl)
+                            .GET()
+                            .header("Referer", landingUrl)
+                            .build();
+                    pending.add(new PendingModal(catId, externalId, extractTitle(el), modalUrl,
+                            crawler.sendIfChangedAsync(request, context)));
+
+                    while (pending.size() > maxInFlight) {
+                        if (emit(pending.poll(), context, sink)) emitted++;
                     }
-
-                    sleepIfNeeded();
-
-                } catch (Exception e) {
-                    System.err.println("Modal çekme hatası sssId=" + sssId + " url=" + modalUrl + " err=" + e.getMessage());
                 }
             }
+
+            // Kalan modalları liste sırasıyla ilet
+            while (!pending.isEmpty() && emitted < limit) {
+                if (emit(pending.poll(), context, sink)) emitted++;
+            }
+        } finally {
+            // limit doldu ya da sink hata verdi: bekleyen sonuçlar kullanılmayacak
+            pending.forEach(p -> p.modal().cancel(true));
+            lists.values().forEach(f -> f.cancel(true));
         }
 
-        System.out.println("====== OgrWebmailSssClient: fetchLatest BİTTİ. Toplam: " + out.size() + " ======");
-        return out;
+        if (emitted >= limit) {
+            System.out.println((testMode ? "TEST MODE" : "maxItems") + " limitine ulaşıldı (" + limit + "), durduruldu.");
+        }
+        System.out.println("====== OgrWebmailSssClient: fetchLatest BİTTİ. Toplam: " + emitted
+                + " (" + (System.currentTimeMillis() - start) + " ms) ======");
+    }
+
+    /**
+     * Modalı bekler ve sink'e verir; değişmemişse (304) atlar, sink hatası yukarı fırlar.
+     * Çekilemediyse loglayıp atlar ve markFailed ile çalıştırmayı eksik (PARTIAL) işaretler;
+     * soru DB'ye girmediği için sonraki çalıştırmada yeni kayıt olarak tekrar istenir.
+     */
+    private boolean emit(PendingModal p, FetchContext context, AnnouncementSink sink) throws Exception {
+        Document modalDoc;
+        try {
+            Optional<Document> modal = p.modal().join();
+            if (modal.isEmpty()) return false;
+            modalDoc = modal.get();
+        } catch (CompletionException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            System.err.println("Modal çekme hatası " + p.externalId() + " url=" + p.modalUrl() + " err=" + cause.getMessage());
+            context.markFailed(p.modalUrl());
+            return false;
+        }
+
+        context.atCategory(p.categoryId());
+        sink.accept(new RawAnnouncement(
+                p.externalId(),
+                p.title(),
+                extractModalHtml(modalDoc),
+                p.modalUrl(),
+                "sss",
+                Instant.now()
+        )); // tüketici hatası çekimi durdurur
+        return true;
+    }
+
+    /** Liste içindeki soru butonlarını yakala (tek selector’a bağlı kalma). */
+    private LinkedHashSet<Element> questionElements(Document listDoc) {
+        Elements candidates = new Elements();
+        candidates.addAll(listDoc.select("button[data-sss-id]"));
+        candidates.addAll(listDoc.select("[data-sss-id]"));
+        candidates.addAll(listDoc.select("button[onclick*=SssModal], a[onclick*=SssModal]"));
+        candidates.addAll(listDoc.select("a[href*=/Home/SssModal/]"));
+
+        // duplicate elementleri temizle
+        return new LinkedHashSet<>(candidates);
     }
 
     private List<Integer> parseCategoryIds(String csv) {
@@ -196,50 +272,34 @@ public class OgrWebmailSssClient implements AnnouncementClient {
         return new ArrayList<>(ids);
     }
 
-    private List<Integer> discoverCategoryIds(String landingUrl, Map<String, String> cookies) {
-        System.out.println("Kategori keşfi: " + landingUrl);
-
-        try {
-            Connection.Response resp = Jsoup.connect(landingUrl)
-                    .userAgent(UA)
-                    .timeout(15_000)
-                    .method(Connection.Method.GET)
-                    .cookies(cookies)
-                    .execute();
-
-            cookies.putAll(resp.cookies());
-            Document doc = resp.parse();
-
-            LinkedHashSet<Integer> ids = new LinkedHashSet<>();
-
-            // 1) data-id
-            for (Element e : doc.select("button.nav-link[data-id], [data-id]")) {
-                String s = e.attr("data-id").trim();
-                try { if (!s.isBlank()) ids.add(Integer.parseInt(s)); } catch (Exception ignore) {}
-            }
+    private List<Integer> discoverCategoryIds(Document doc) {
+        System.out.println("Kategori keşfi: " + doc.location());
 
-            // 2) onclick="SSSorular(13)"
-            for (Element e : doc.select("[onclick*=SSSorular]")) {
-                String onclick = e.attr("onclick");
-                Matcher m = SSSORULAR_CALL.matcher(onclick);
-                if (m.find()) ids.add(Integer.parseInt(m.group(1)));
-            }
+        LinkedHashSet<Integer> ids = new LinkedHashSet<>();
 
-            // 3) href="/Home/SSSorular/13"
-            for (Element e : doc.select("a[href*=/Home/SSSorular/]")) {
-                String href = e.attr("href");
-                Matcher m = DIGITS.matcher(href);
-                if (m.find()) ids.add(Integer.parseInt(m.group(1)));
-            }
+        // 1) data-id
+        for (Element e : doc.select("button.nav-link[data-id], [data-id]")) {
+            String s = e.attr("data-id").trim();
+            try { if (!s.isBlank()) ids.add(Integer.parseInt(s)); } catch (Exception ignore) {}
+        }
 
-            List<Integer> result = new ArrayList<>(ids);
-            System.out.println("Keşfedilen categoryIds=" + result);
-            return result;
+        // 2) onclick="SSSorular(13)"
+        for (Element e : doc.select("[onclick*=SSSorular]")) {
+            String onclick = e.attr("onclick");
+            Matcher m = SSSORULAR_CALL.matcher(onclick);
+            if (m.find()) ids.add(Integer.parseInt(m.group(1)));
+        }
 
-        } catch (Exception e) {
-            System.err.println("Kategori keşfi başarısız: " + e.getMessage());
-            return Collections.emptyList();
+        // 3) href="/Home/SSSorular/13"
+        for (Element e : doc.select("a[href*=/Home/SSSorular/]")) {
+            String href = e.attr("href");
+            Matcher m = DIGITS.matcher(href);
+            if (m.find()) ids.add(Integer.parseInt(m.group(1)));
         }
+
+        List<Integer> result = new ArrayList<>(ids);
+        System.out.println("Keşfedilen categoryIds=" + result);
+        return result;
     }
 
     private String extractSssId(Element el) {
@@ -280,10 +340,4 @@ public class OgrWebmailSssClient implements AnnouncementClient {
         String fallback = modalDoc.html();
         return (fallback == null || fallback.isBlank()) ? "<p>İçerik bulunamadı.</p>" : fallback;
     }
-
-    private void sleepIfNeeded() {
-        if (sleepMs <= 0) return;
-        try { Thread.sleep(sleepMs); }
-        catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
-    }
 }
@@ -21,6 +21,7 @@ public interface AnnouncementMapper {
     @Mapping(target = "source", ignore = true)
     @Mapping(target = "scrapedAt", expression = "java(java.time.Instant.now())")
     @Mapping(target = "lang", constant = "tr")
+    @Mapping(target = "contentHash", ignore = true) // ETL normalize edince hesaplanır
     Announcement fromCreate(CreateAnnouncementDTO dto);
 }
 
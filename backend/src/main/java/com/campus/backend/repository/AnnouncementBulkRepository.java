@@ -0,0 +1,126 @@
+package com.campus.backend.repository;
+
+import com.campus.backend.entity.Announcement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ETL için toplu duyuru ekleme.
+ *
+ * Announcement IDENTITY id kullandığı için Hibernate insert'leri paketleyemez (her satır ayrı
+ * INSERT + id dönüşü). Burada paket tek bir çok satırlı INSERT ... ON CONFLICT DO NOTHING
+ * RETURNING ile yazılır: tek round-trip, üretilen id'ler external_id ile eşlenip nesnelere set edilir.
+ *
+ * Çağıran transaction'a katılır (JdbcTemplate, JPA transaction'ının bağlantısını kullanır).
+ * Dönen nesneler JPA tarafından yönetilmez (detached).
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnnouncementBulkRepository {
+
+    private static final String INSERT_PREFIX =
+            "insert into announcements (source_id, external_id, title, content, url, category, published_at, scraped_at, lang, content_hash) values ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUFFIX =
+            " on conflict (source_id, external_id) do nothing returning id, external_id";
+
+    private static final String UPDATE =
+            "update announcements set title = ?, content = ?, url = ?, category = ?, published_at = ?, scraped_at = ?, content_hash = ? where id = ?";
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000; // 10 kolon x 1000 < PostgreSQL parametre limiti (32767)
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Satırları ekler ve id'lerini set eder. Aynı (source, externalId) zaten varsa satır atlanır
+     * ve id'si null kalır. Tüm satırlar aynı kaynağa ait olmalıdır.
+     *
+     * @return eklenen satır sayısı
+     */
+    public int insertAll(List<Announcement> rows) {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            inserted += insertChunk(rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT)));
+        }
+        return inserted;
+    }
+
+    /**
+     * İçeriği değişmiş kayıtları id ile günceller (JDBC batch, tek round-trip).
+     * source/externalId/lang değişmez; scrapedAt şimdiye çekilir.
+     */
+    public void updateAll(List<Announcement> rows) {
+        if (rows.isEmpty()) return;
+        Instant now = Instant.now();
+        jdbc.batchUpdate(UPDATE, rows, rows.size(), (ps, a) -> {
+            a.setScrapedAt(now);
+            int p = 1;
+            ps.setString(p++, a.getTitle());
+            ps.setString(p++, a.getContent());
+            ps.setString(p++, a.getUrl());
+            ps.setString(p++, a.getCategory());
+            ps.setObject(p++, utc(a.getPublishedAt()));
+            ps.setObject(p++, utc(a.getScrapedAt()));
+            ps.setString(p++, a.getContentHash());
+            ps.setLong(p, a.getId());
+        });
+    }
+
+    private int insertChunk(List<Announcement> rows) {
+        if (rows.isEmpty()) return 0;
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * (ROW.length() + 2) + INSERT_SUFFIX.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW);
+        }
+        sql.append(INSERT_SUFFIX);
+
+        Instant now = Instant.now();
+        Map<String, Long> ids = new HashMap<>();
+        jdbc.query(sql.toString(), ps -> {
+            int p = 1;
+            for (Announcement a : rows) {
+                if (a.getScrapedAt() == null) a.setScrapedAt(now);   // @PrePersist burada çalışmaz
+                if (a.getLang() == null) a.setLang("tr");
+                p = bind(ps, p, a);
+            }
+        }, rs -> {
+            ids.put(rs.getString("external_id"), rs.getLong("id"));
+        });
+
+        for (Announcement a : rows) {
+            a.setId(ids.get(a.getExternalId()));
+        }
+        return ids.size();
+    }
+
+    private static int bind(PreparedStatement ps, int p, Announcement a) throws SQLException {
+        ps.setInt(p++, a.getSource().getId());
+        ps.setString(p++, a.getExternalId());
+        ps.setString(p++, a.getTitle());
+        ps.setString(p++, a.getContent());
+        ps.setString(p++, a.getUrl());
+        ps.setString(p++, a.getCategory());
+        ps.setObject(p++, utc(a.getPublishedAt()));
+        ps.setObject(p++, utc(a.getScrapedAt()));
+        ps.setString(p++, a.getLang());
+        ps.setString(p++, a.getContentHash());
+        return p;
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return (instant != null) ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
@@ -3,6 +3,11 @@ package com.campus.backend.repository;
 import com.campus.backend.entity.Announcement;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // <-- BU IMPORT'U EKLEYİN
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 //                                                                      ↓ VE BU KISMI EKLEYİN
@@ -11,4 +16,24 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
     // Bu metod planınızın 1.6 adımında vardı (ETL servisi için gerekli)
     Optional<Announcement> findBySourceIdAndExternalId(Integer sourceId, String externalId);
 
+    // Artımlı ETL + değişiklik tespiti: kaynağın kayıtları için id + içerik özeti (tek sorgu, metin yüklenmez)
+    @Query("select a.id as id, a.externalId as externalId, a.contentHash as contentHash from Announcement a where a.source.id = :sourceId")
+    List<Fingerprint> findFingerprintsBySourceId(@Param("sourceId") Integer sourceId);
+
+    // İçerik özeti olmayan (eski) kayıtlar; özet bir kez DB'deki metinden doldurulur
+    List<Announcement> findBySourceIdAndContentHashIsNull(Integer sourceId);
+
+    // FAQ tablosunun ilk doldurulması: daha önce duyuru olarak kaydedilmiş SSS kayıtları
+    List<Announcement> findBySourceIdAndCategory(Integer sourceId, String category);
+
+    // Verilen id'lerden hâlâ var olanlar (metin yüklenmez)
+    @Query("select a.id from Announcement a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    interface Fingerprint {
+        Long getId();
+        String getExternalId();
+        String getContentHash();
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.campus.backend.repository;
+
+import com.campus.backend.entity.ConversationMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Sohbet mesajlarının toplu yazımı (ConversationMessageWriter).
+ *
+ * ConversationMessage IDENTITY id kullandığı için Hibernate insert'leri paketleyemez; burada
+ * paket tek JDBC batch ile yazılır. Üretilen id'ler geri okunmaz (mesajlar yalnızca eklenir).
+ *
+ * content @Lob olduğundan Hibernate PostgreSQL'de kolonu oid (large object) olarak yaratır;
+ * kolon tipi ilk yazımda okunur ve oid ise metin lo_from_bytea ile large object'e çevrilir.
+ * Çağıran transaction'a katılır (large object yazımı transaction gerektirir).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConversationMessageBulkRepository {
+
+    private static final String INSERT =
+            "insert into conversation_messages (conversation_id, role, content, created_at) values (?, ?, %s, ?)";
+
+    private final JdbcTemplate jdbc;
+
+    private volatile String insertSql; // kolon tipine göre, ilk yazımda belirlenir
+
+    public void insertAll(List<ConversationMessage> rows) {
+        if (rows.isEmpty()) return;
+        jdbc.batchUpdate(insertSql(), rows, rows.size(), (ps, m) -> {
+            ps.setLong(1, m.getConversation().getId());
+            ps.setString(2, m.getRole().name());
+            ps.setString(3, m.getContent());
+            ps.setObject(4, m.getCreatedAt().atOffset(ZoneOffset.UTC));
+        });
+    }
+
+    private String insertSql() {
+        String sql = insertSql;
+        if (sql == null) {
+            List<String> types = jdbc.queryForList(
+                    "select data_type from information_schema.columns "
+                            + "where table_name = 'conversation_messages' and column_name = 'content'",
+                    String.class);
+            boolean largeObject = !types.isEmpty() && "oid".equalsIgnoreCase(types.get(0));
+            sql = INSERT.formatted(largeObject ? "lo_from_bytea(0, convert_to(?, 'UTF8'))" : "?");
+            insertSql = sql;
+        }
+        return sql;
+    }
+}
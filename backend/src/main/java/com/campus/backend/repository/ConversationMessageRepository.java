@@ -4,9 +4,12 @@ import com.campus.backend.entity.ConversationMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface ConversationMessageRepository extends JpaRepository<ConversationMessage, Long> {
 
+    // content @Lob (PostgreSQL'de oid): large object okuma transaction ister; çağıran açmasa da
+    @Transactional(readOnly = true)
     Page<ConversationMessage> findByConversation_IdOrderByCreatedAtDesc(Long conversationId, Pageable pageable);
 }
 
@@ -2,9 +2,20 @@ package com.campus.backend.repository;
 
 import com.campus.backend.entity.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
     Optional<Conversation> findByUserIdAndConversationKey(Long userId, String conversationKey);
+
+    // Özet yalnızca ileri gider: eşzamanlı/eski bir özetleme daha yeni özeti ezmesin
+    @Modifying
+    @Query("update Conversation c set c.summary = :summary, c.summarizedUntil = :until, c.updatedAt = :now " +
+            "where c.id = :id and (c.summarizedUntil is null or c.summarizedUntil < :until)")
+    int updateSummary(@Param("id") Long id, @Param("summary") String summary,
+                      @Param("until") Instant until, @Param("now") Instant now);
 }
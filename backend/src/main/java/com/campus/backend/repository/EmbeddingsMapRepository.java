@@ -2,8 +2,22 @@ package com.campus.backend.repository;
 
 import com.campus.backend.entity.EmbeddingsMap;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface EmbeddingsMapRepository extends JpaRepository<EmbeddingsMap, Long> {
     boolean existsByVectorId(String vectorId);
     boolean existsByKindAndRecordId(String kind, Long recordId);
+
+    // Toplu indekslemede: hangi kayıtlar zaten indekslenmiş? (tek sorgu)
+    @Query("select m.recordId from EmbeddingsMap m where m.kind = :kind and m.recordId in :recordIds")
+    List<Long> findIndexedRecordIds(@Param("kind") String kind, @Param("recordIds") Collection<Long> recordIds);
+
+    List<EmbeddingsMap> findByKindAndRecordIdIn(String kind, Collection<Long> recordIds);
+
+    // Parçalı indekslemeden önce yazılmış (tek vektörlü) kayıtlar; afterId'den sonrası (sayfalama)
+    List<EmbeddingsMap> findTop500ByKindAndChunkCountIsNullAndIdGreaterThanOrderByIdAsc(String kind, Long afterId);
 }
@@ -3,5 +3,10 @@ package com.campus.backend.repository;
 import com.campus.backend.entity.EtlJob;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface EtlJobRepository extends JpaRepository<EtlJob, Long> {
+
+    /** Kaynağın son çalıştırması (devam edilecek kontrol noktası için). */
+    Optional<EtlJob> findFirstByJobNameOrderByIdDesc(String jobName);
 }
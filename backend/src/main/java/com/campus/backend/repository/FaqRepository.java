@@ -3,5 +3,11 @@ package com.campus.backend.repository;
 import com.campus.backend.entity.Faq;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface FaqRepository extends JpaRepository<Faq, Long> {
+
+    // ETL upsert: paketteki SSS kayıtlarının mevcut satırları tek sorguda
+    List<Faq> findByExternalIdIn(Collection<String> externalIds);
 }
@@ -0,0 +1,11 @@
+package com.campus.backend.repository;
+
+import com.campus.backend.entity.HttpValidator;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface HttpValidatorRepository extends JpaRepository<HttpValidator, String> {
+
+    List<HttpValidator> findBySourceCode(String sourceCode);
+}
@@ -0,0 +1,86 @@
+package com.campus.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * indexing_outbox için JDBC erişimi (bkz. IndexingOutbox).
+ *
+ * claim, FOR UPDATE SKIP LOCKED ile satırları alır ve nextAttemptAt'i kira süresi kadar ileri
+ * atar; transaction hemen biter. Böylece worker'lar birbirini beklemez ve embed/Chroma çağrıları
+ * sırasında açık transaction ya da kilit kalmaz. Kira dolmadan complete/fail gelmezse
+ * (worker öldü) satır kendiliğinden tekrar alınabilir hale gelir.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IndexingOutboxRepository {
+
+    private static final String ENQUEUE =
+            "insert into indexing_outbox (announcement_id, status, attempts, generation, next_attempt_at, created_at) "
+                    + "values (?, 'PENDING', 0, 0, ?, ?) "
+                    + "on conflict (announcement_id) do update set status = 'PENDING', attempts = 0, "
+                    + "generation = indexing_outbox.generation + 1, next_attempt_at = excluded.next_attempt_at, last_error = null";
+
+    private static final String CLAIM =
+            "update indexing_outbox set next_attempt_at = ? where id in ("
+                    + "select id from indexing_outbox where status = 'PENDING' and next_attempt_at <= ? "
+                    + "order by next_attempt_at, id limit ? for update skip locked) "
+                    + "returning id, announcement_id, attempts, generation";
+
+    private static final String COMPLETE = "delete from indexing_outbox where id = ? and generation = ?";
+
+    private static final String FAIL =
+            "update indexing_outbox set attempts = attempts + 1, last_error = ?, next_attempt_at = ?, "
+                    + "status = case when attempts + 1 >= ? then 'DEAD' else 'PENDING' end "
+                    + "where id = ? and generation = ?";
+
+    private final JdbcTemplate jdbc;
+
+    /** Alınmış satır; generation, işlem sırasında yeniden eklenip eklenmediğini ayırt eder. */
+    public record Item(long id, long announcementId, int attempts, long generation) {}
+
+    /** Çağıranın transaction'ına katılır (duyuru yazımıyla aynı commit). */
+    public void enqueue(Collection<Long> announcementIds) {
+        if (announcementIds.isEmpty()) return;
+        OffsetDateTime now = utc(Instant.now());
+        jdbc.batchUpdate(ENQUEUE, List.copyOf(announcementIds), announcementIds.size(), (ps, id) -> {
+            ps.setLong(1, id);
+            ps.setObject(2, now);
+            ps.setObject(3, now);
+        });
+    }
+
+    /** Zamanı gelmiş en fazla limit satırı alır ve lease süresince diğer worker'lardan gizler. */
+    public List<Item> claim(int limit, Duration lease) {
+        Instant now = Instant.now();
+        return jdbc.query(CLAIM,
+                (rs, i) -> new Item(rs.getLong("id"), rs.getLong("announcement_id"),
+                        rs.getInt("attempts"), rs.getLong("generation")),
+                utc(now.plus(lease)), utc(now), limit);
+    }
+
+    public void complete(List<Item> items) {
+        if (items.isEmpty()) return;
+        jdbc.batchUpdate(COMPLETE, items, items.size(), (ps, item) -> {
+            ps.setLong(1, item.id());
+            ps.setLong(2, item.generation());
+        });
+    }
+
+    /** Deneme sayısını artırır; maxAttempts'e ulaşan satır DEAD olur. */
+    public void fail(Item item, String error, Instant retryAt, int maxAttempts) {
+        jdbc.update(FAIL, error, utc(retryAt), maxAttempts, item.id(), item.generation());
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
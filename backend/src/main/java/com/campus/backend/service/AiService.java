@@ -4,19 +4,24 @@ import com.campus.backend.dto.Emotion;
 import com.campus.backend.entity.*;
 import com.campus.backend.vector.DocumentMatch;
 import com.campus.backend.vector.EmbeddingService;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileCopyUtils;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -26,15 +31,22 @@ public class AiService {
 
     private final EmbeddingService embeddingService;
     private final ChatLanguageModel chatModel;
+    private final StreamingChatLanguageModel streamingChatModel;
     private final UserPreferenceService userPreferenceService;
     private final ConversationMemoryService conversationMemoryService;
+    private final ConversationSummarizer conversationSummarizer;
+    private final SemanticAnswerCache answerCache;
+    private final FaqMatcher faqMatcher;
+    private final ExecutorService aiExecutor;
 
-    private final Resource ragPromptResource;
-    private String promptTemplate;
+    private final PromptBuilder promptBuilder;
+
+    private final Timer firstTokenTimer;
 
     private static final double RELEVANCE_THRESHOLD = 0.75;
 
-    // Öneri: 10 yerine 6 daha stabil oluyor (konu değişiminde gürültüyü azaltır)
+    // Öneri: 10 yerine 6 daha stabil oluyor (konu değişiminde gürültüyü azaltır).
+    // Konuşma özetlendiyse bunlardan yalnızca özetten sonrakiler prompt'a girer (ConversationSummarizer).
     private static final int HISTORY_LIMIT = 6;
 
     private static final String DEFAULT_CONVERSATION_KEY = "default";
@@ -46,24 +58,29 @@ public class AiService {
     public AiService(
             EmbeddingService embeddingService,
             ChatLanguageModel chatModel,
+            StreamingChatLanguageModel streamingChatModel,
             UserPreferenceService userPreferenceService,
             ConversationMemoryService conversationMemoryService,
-            @Value("classpath:prompts/rag-template.txt") Resource ragPromptResource
+            ConversationSummarizer conversationSummarizer,
+            SemanticAnswerCache answerCache,
+            FaqMatcher faqMatcher,
+            MeterRegistry meterRegistry,
+            @Qualifier("aiExecutor") ExecutorService aiExecutor,
+            PromptBuilder promptBuilder
     ) {
         this.embeddingService = embeddingService;
         this.chatModel = chatModel;
+        this.streamingChatModel = streamingChatModel;
         this.userPreferenceService = userPreferenceService;
         this.conversationMemoryService = conversationMemoryService;
-        this.ragPromptResource = ragPromptResource;
-    }
-
-    @PostConstruct
-    public void init() {
-        try (InputStreamReader reader = new InputStreamReader(ragPromptResource.getInputStream(), StandardCharsets.UTF_8)) {
-            this.promptTemplate = FileCopyUtils.copyToString(reader);
-        } catch (IOException e) {
-            throw new UncheckedIOException("Prompt dosyası okunamadı: " + ragPromptResource, e);
-        }
+        this.conversationSummarizer = conversationSummarizer;
+        this.answerCache = answerCache;
+        this.faqMatcher = faqMatcher;
+        this.aiExecutor = aiExecutor;
+        this.firstTokenTimer = Timer.builder("ai.stream.first-token")
+                .description("Akışlı sohbette ilk temiz token'a kadar geçen süre")
+                .register(meterRegistry);
+        this.promptBuilder = promptBuilder;
     }
 
     public String getAiResponse(String userQuery) {
@@ -71,53 +88,181 @@ public class AiService {
     }
 
     public String getAiResponse(String userQuery, Emotion emotion) {
+        PreparedTurn turn = prepareTurn(resolveCurrentUserIdOrNull(), userQuery, emotion);
+        if (turn.immediateAnswer() != null) {
+            return completeImmediate(turn);
+        }
 
-        Long userId = resolveCurrentUserIdOrNull();
+        String rawAnswer = chatModel.generate(turn.prompt());
+        return completeTurn(turn, rawAnswer);
+    }
 
-        Conversation conversation = null;
-        String historyBlock = "";
-        List<ConversationMessage> history = List.of();
+    /**
+     * Aynı RAG akışı, ancak cevap token token akıtılır.
+     * KULLANILAN_KAYNAK / Kaynak satırları akış sırasında ayıklanır; temiz cevap
+     * ancak akış bittikten sonra konuşma hafızasına yazılır ve onComplete ile iletilir.
+     *
+     * Hemen döner: kullanıcı id'si SecurityContext'ten çağıran (request) thread'inde alınır,
+     * hazırlık (DB, embedding, arama) aiExecutor'da yapılır; akış model thread'inde devam eder.
+     * Hazırlık hatası listener.onError ile iletilir.
+     */
+    public void streamAiResponse(String userQuery, Emotion emotion, AiStreamListener listener) {
+        long start = System.nanoTime();
+        Long userId = resolveCurrentUserIdOrNull();
+        aiExecutor.execute(() -> {
+            try {
+                streamPrepared(prepareTurn(userId, userQuery, emotion), start, listener);
+            } catch (Exception e) {
+                listener.onError(e);
+            }
+        });
+    }
 
-        if (userId != null) {
-            conversation = conversationMemoryService.getOrCreate(userId, DEFAULT_CONVERSATION_KEY);
-            history = conversationMemoryService.getLastMessages(conversation.getId(), HISTORY_LIMIT);
-            historyBlock = formatHistory(history);
+    private void streamPrepared(PreparedTurn turn, long start, AiStreamListener listener) {
+        if (turn.immediateAnswer() != null) {
+            String answer = completeImmediate(turn);
+            firstTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            listener.onToken(answer);
+            listener.onComplete(answer);
+            return;
         }
 
-        UserPreference pref = resolveCurrentUserPreferenceOrNull();
-        boolean citationsEnabled = (pref != null) && pref.isCitations();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        StreamingAnswerFilter filter = new StreamingAnswerFilter(text -> {
+            if (firstToken.compareAndSet(true, false)) {
+                firstTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            listener.onToken(text);
+        });
+
+        streamingChatModel.generate(turn.prompt(), new StreamingResponseHandler<AiMessage>() {
+            @Override
+            public void onNext(String token) {
+                filter.accept(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                try {
+                    filter.complete();
+                    String raw = (response != null && response.content() != null) ? response.content().text() : "";
+                    listener.onComplete(completeTurn(turn, raw));
+                } catch (Exception e) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                listener.onError(error);
+            }
+        });
+    }
+
+    // -------------------------
+    // TURN PIPELINE
+    // -------------------------
+
+    /**
+     * LLM çağrısına kadar hazırlanmış bir sohbet turu.
+     * immediateAnswer doluysa LLM'e gerek yoktur (fallback / önbellek / SSS isabeti).
+     */
+    private record PreparedTurn(
+            Conversation conversation,
+            String userQuery,
+            String immediateAnswer,
+            String prompt,
+            boolean memoryQuestion,
+            List<DocumentMatch> usedForPrompt,
+            boolean citationsEnabled,
+            boolean cacheable,
+            float[] queryEmbedding,
+            List<String> sourceIds,
+            String profileKey
+    ) {}
+
+    /** RAG arama sonucu ve aramada kullanılan (gerekirse geçmişle güçlendirilmiş) sorgu. */
+    private record Retrieval(String ragQuery, List<DocumentMatch> matches) {}
+
+    /**
+     * Bağımlılık grafiği (her düğüm aiExecutor üzerinde ayrı sanal thread):
+     *
+     *   userId (request thread, SecurityContext; parametre olarak gelir)
+     *     ├─ conversation ──> history ──┐
+     *     ├─ preference ────────────────┼─> prompt
+     *     └─ retrieval (embedding + vektör/BM25) ┘
+     *
+     * Takip sorusu değilse retrieval geçmişe bağlı değildir ve DB okumalarıyla paralel başlar;
+     * takip sorusunda sorgu geçmişle güçlendirildiği için history tamamlanınca başlar.
+     * Hafıza sorularında retrieval hiç çalışmaz.
+     *
+     * SSS hızlı yolu: normalize soru bir SSS sorusuyla birebir aynıysa retrieval başlamaz.
+     * Değilse (takip sorusu hariç) önce SSS vektör eşleşmesine bakılır; retrieval onun ardından
+     * aynı (önbellekteki) sorgu vektörüyle çalışır, isabette hiç çalışmaz.
+     */
+    private PreparedTurn prepareTurn(Long userId, String userQuery, Emotion emotion) {
+
+        // SecurityContext thread-local: kullanıcı id'si çağıran çözer, worker thread'lere değer olarak geçer
+
+        CompletableFuture<Conversation> conversationF = (userId == null)
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(
+                        () -> conversationMemoryService.getOrCreate(userId, DEFAULT_CONVERSATION_KEY), aiExecutor);
+
+        CompletableFuture<List<ConversationMessage>> historyF = conversationF.thenApplyAsync(
+                c -> (c == null) ? List.<ConversationMessage>of()
+                        : conversationSummarizer.unsummarized(c,
+                                conversationMemoryService.getLastMessages(c.getId(), HISTORY_LIMIT)),
+                aiExecutor);
+
+        CompletableFuture<UserPreference> prefF = (userId == null)
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> resolveUserPreferenceOrNull(userId), aiExecutor);
 
         // 1) Konuşma hafızası soruları (az önce ne dedim vs.)
         boolean memoryQuestion = isConversationMemoryQuery(userQuery);
-        if (memoryQuestion) {
-            String preferencePolicy = buildPreferenceAndEmotionPolicy(pref, emotion);
 
-            String memoryPrompt =
-                    preferencePolicy + "\n\n" +
-                            "KONUŞMA GEÇMİŞİ (yalnızca bağlam içindir; burada yazmayanı uydurma):\n" +
-                            (historyBlock.isBlank() ? "(Geçmiş yok)\n" : historyBlock + "\n") +
-                            "\nKullanıcı sorusu:\n" + userQuery + "\n\n" +
-                            "Kurallar:\n" +
-                            "- Yalnızca KONUŞMA GEÇMİŞİ'nde geçenlere dayan.\n" +
-                            "- Geçmişte yoksa açıkça 'Bu konuşmada bunu göremiyorum' de.\n" +
-                            "- Türkçe, kısa ve net yaz.\n";
+        // 2) SSS + RAG ARAMASI (KRİTİK FIX: takip sorularında query’yi history ile güçlendir)
+        Optional<FaqMatcher.Match> exactFaq = memoryQuestion ? Optional.empty() : faqMatcher.matchExact(userQuery);
+        CompletableFuture<Optional<FaqMatcher.Match>> faqF = CompletableFuture.completedFuture(exactFaq);
+        CompletableFuture<Retrieval> retrievalF;
+        if (memoryQuestion || exactFaq.isPresent()) {
+            retrievalF = CompletableFuture.completedFuture(null);
+        } else if (isFollowUpQuery(userQuery)) {
+            retrievalF = historyF.thenApplyAsync(h -> retrieve(buildRagQuery(userQuery, h)), aiExecutor);
+        } else {
+            faqF = CompletableFuture.supplyAsync(() -> faqMatcher.matchSimilar(userQuery), aiExecutor);
+            retrievalF = faqF.thenApplyAsync(faq -> faq.isPresent() ? null : retrieve(userQuery), aiExecutor);
+        }
 
-            String answerRaw = chatModel.generate(memoryPrompt);
-            if (answerRaw == null) answerRaw = "";
+        Conversation conversation = await(conversationF);
+        List<ConversationMessage> history = await(historyF);
+        UserPreference pref = await(prefF);
+        Optional<FaqMatcher.Match> faq = await(faqF);
+        Retrieval retrieval = await(retrievalF);
 
-            String cleanedForUser = stripInternalAndSources(answerRaw).trim();
+        boolean citationsEnabled = (pref != null) && pref.isCitations();
+        String summary = (conversation != null) ? conversation.getSummary() : null;
+
+        if (faq.isPresent()) {
+            // küratörlü SSS cevabı olduğu gibi; LLM çağrısı yok
+            String answer = citationsEnabled
+                    ? appendResolvedSource(faq.get().answer(), faq.get().url())
+                    : faq.get().answer();
+            return new PreparedTurn(conversation, userQuery, answer, null, false,
+                    List.of(), false, false, null, List.of(), null);
+        }
 
-            if (conversation != null) {
-                conversationMemoryService.append(conversation, ConversationMessageRole.USER, userQuery);
-                conversationMemoryService.append(conversation, ConversationMessageRole.ASSISTANT, cleanedForUser);
-            }
+        if (memoryQuestion) {
+            String preferencePolicy = buildPreferenceAndEmotionPolicy(pref, emotion);
+            String memoryPrompt = promptBuilder.buildMemoryPrompt(preferencePolicy, summary, history, userQuery).text();
 
-            return cleanedForUser;
+            return new PreparedTurn(conversation, userQuery, null, memoryPrompt, true,
+                    List.of(), false, false, null, List.of(), null);
         }
 
-        // 2) RAG ARAMASI (KRİTİK FIX: takip sorularında query’yi history ile güçlendir)
-        String ragQuery = buildRagQuery(userQuery, history);
-        List<DocumentMatch> matches = embeddingService.findRelevantDocuments(ragQuery, 8);
+        String ragQuery = retrieval.ragQuery();
+        List<DocumentMatch> matches = retrieval.matches();
 
         boolean hasRelevant = matches != null && matches.stream()
                 .anyMatch(m -> m != null && m.distance() <= RELEVANCE_THRESHOLD);
@@ -127,11 +272,8 @@ public class AiService {
                     "Bu soru için duyurularda net bir bilgi bulamadım. " +
                             "Eğer duyurunun başlığını veya linkini paylaşırsan birlikte kesinleştirebilirim.";
 
-            if (conversation != null) {
-                conversationMemoryService.append(conversation, ConversationMessageRole.USER, userQuery);
-                conversationMemoryService.append(conversation, ConversationMessageRole.ASSISTANT, fallback);
-            }
-            return fallback;
+            return new PreparedTurn(conversation, userQuery, fallback, null, false,
+                    List.of(), false, false, null, List.of(), null);
         }
 
         // 3) Prompt’a yalnızca threshold altı duyuruları koy (sapmayı azaltır)
@@ -144,46 +286,130 @@ public class AiService {
             usedForPrompt = matches.stream().filter(m -> m != null).limit(2).collect(Collectors.toList());
         }
 
-        // 4) Context: SOURCE_ID ile ver
-        String context = buildContextWithSourceIds(usedForPrompt);
-
+        // 4) Prompt: token bütçesine göre; sığmayan en düşük sıralı kaynaklar düşer,
+        //    SOURCE_ID'ler (S1..Sn) prompt'a giren kaynakların sırasıdır
         String preferencePolicy = buildPreferenceAndEmotionPolicy(pref, emotion)
                 + "\n- Not: Konuşma geçmişi diyaloğu sürdürmek içindir; BAĞLAM ise referans bilgidir.\n"
                 + "- BAĞLAM'ı kelimesi kelimesine kopyalama; sadeleştirip yorumlayarak anlat.\n";
 
         String emotionValue = (emotion != null) ? emotion.name() : "UNKNOWN";
-        String ragPrompt = String.format(this.promptTemplate, context, emotionValue, userQuery);
+        PromptBuilder.BuiltPrompt built =
+                promptBuilder.buildRagPrompt(preferencePolicy, summary, history, usedForPrompt, emotionValue, userQuery);
+        usedForPrompt = built.usedContext();
+
+        // 5) Anlamsal önbellek: takip sorusu değilse cevap geçmişe bağlı değildir,
+        //    aynı kaynaklar + aynı tercih profili + çok yakın sorgu => önceki cevap
+        boolean cacheable = ragQuery.equals(userQuery);
+        float[] queryEmbedding = null;
+        List<String> sourceIds = List.of();
+        String profileKey = null;
+
+        if (cacheable) {
+            queryEmbedding = embeddingService.embedQuery(ragQuery); // önbellekte, ek çağrı yok
+            sourceIds = sourceIdsOf(usedForPrompt);
+            profileKey = profileKeyOf(pref, emotion);
+
+            Optional<String> cached = answerCache.lookup(queryEmbedding, sourceIds, profileKey);
+            if (cached.isPresent()) {
+                return new PreparedTurn(conversation, userQuery, cached.get(), null, false,
+                        usedForPrompt, citationsEnabled, false, null, List.of(), null);
+            }
+        }
+
+        String finalPrompt = built.text();
 
-        String finalPrompt =
-                preferencePolicy + "\n\n" +
-                        "KONUŞMA GEÇMİŞİ (bağlam):\n" +
-                        (historyBlock.isBlank() ? "(Geçmiş yok)\n" : historyBlock + "\n") +
-                        "\n" + ragPrompt;
+        return new PreparedTurn(conversation, userQuery, null, finalPrompt, false,
+                usedForPrompt, citationsEnabled, cacheable, queryEmbedding, sourceIds, profileKey);
+    }
+
+    /** LLM gerektirmeyen cevabı (fallback / önbellek) kaydedip döndürür. */
+    private String completeImmediate(PreparedTurn turn) {
+        persistTurn(turn, turn.immediateAnswer());
+        return turn.immediateAnswer();
+    }
 
-        String rawAnswer = chatModel.generate(finalPrompt);
+    /** Modelin ham cevabını temizler, kaynağı çözer, önbelleğe ve hafızaya yazar. */
+    private String completeTurn(PreparedTurn turn, String rawAnswer) {
         if (rawAnswer == null) rawAnswer = "";
 
-        // 5) Modelin seçtiği SOURCE_ID’yi yakala
+        if (turn.memoryQuestion()) {
+            String cleanedForUser = stripInternalAndSources(rawAnswer).trim();
+            persistTurn(turn, cleanedForUser);
+            return cleanedForUser;
+        }
+
+        // 6) Modelin seçtiği SOURCE_ID’yi yakala
         String usedSourceId = extractUsedSourceId(rawAnswer); // S1, S2, ... veya YOK
 
-        // 6) Kullanıcıya gösterilecek metni temizle (internal + kaynak satırları)
+        // 7) Kullanıcıya gösterilecek metni temizle (internal + kaynak satırları)
         String answerForUser = stripInternalAndSources(rawAnswer).trim();
 
-        // 7) Doğru linki bas (citationsEnabled ise)
-        if (citationsEnabled) {
-            String url = resolveUrlBySourceId(usedSourceId, usedForPrompt);
+        // 8) Doğru linki bas (citationsEnabled ise)
+        if (turn.citationsEnabled()) {
+            String url = resolveUrlBySourceId(usedSourceId, turn.usedForPrompt());
             answerForUser = appendResolvedSource(answerForUser, url);
         }
 
-        // 8) DB’ye kaydet (temiz hali)
-        if (conversation != null) {
-            conversationMemoryService.append(conversation, ConversationMessageRole.USER, userQuery);
-            conversationMemoryService.append(conversation, ConversationMessageRole.ASSISTANT, answerForUser);
+        if (turn.cacheable()) {
+            answerCache.put(turn.queryEmbedding(), turn.sourceIds(), turn.profileKey(), answerForUser);
         }
 
+        // 9) DB’ye kaydet (temiz hali)
+        persistTurn(turn, answerForUser);
         return answerForUser;
     }
 
+    private void persistTurn(PreparedTurn turn, String answerForUser) {
+        if (turn.conversation() != null) {
+            conversationMemoryService.append(turn.conversation(), ConversationMessageRole.USER, turn.userQuery());
+            conversationMemoryService.append(turn.conversation(), ConversationMessageRole.ASSISTANT, answerForUser);
+            conversationSummarizer.maybeSummarizeAsync(turn.conversation()); // eski turları özete katla (arka planda)
+        }
+    }
+
+    // -------------------------
+    // FAN-OUT helpers
+    // -------------------------
+
+    private Retrieval retrieve(String ragQuery) {
+        return new Retrieval(ragQuery, embeddingService.findRelevantDocuments(ragQuery, 8));
+    }
+
+    /** Aşama sonucunu bekler; aşamadaki hatayı sarmalamadan (CompletionException olmadan) fırlatır. */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    // -------------------------
+    // ANSWER CACHE helpers
+    // -------------------------
+
+    private List<String> sourceIdsOf(List<DocumentMatch> matches) {
+        return matches.stream()
+                .map(m -> {
+                    Object kind = (m.metadata() != null) ? m.metadata().get("kind") : null;
+                    Object id = (m.metadata() != null) ? m.metadata().get("id") : null;
+                    return (id != null) ? kind + ":" + id : "text:" + m.text().hashCode();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private String profileKeyOf(UserPreference pref, Emotion emotion) {
+        Verbosity verbosity = (pref != null) ? pref.getVerbosity() : Verbosity.NORMAL;
+        AnswerFormat format = (pref != null) ? pref.getFormat() : AnswerFormat.DEFAULT;
+        Tone tone = (pref != null) ? pref.getTone() : Tone.SIMPLE;
+        boolean citations = (pref != null) && pref.isCitations();
+        String e = (emotion != null) ? emotion.name() : "UNKNOWN";
+        return verbosity + "/" + format + "/" + tone + "/" + citations + "/" + e;
+    }
+
     // -------------------------
     // RAG QUERY HELPERS (NEW)
     // -------------------------
@@ -246,34 +472,6 @@ public class AiService {
     // SOURCE_ID helpers
     // -------------------------
 
-    private String buildContextWithSourceIds(List<DocumentMatch> matches) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < matches.size(); i++) {
-            DocumentMatch m = matches.get(i);
-            String sid = "S" + (i + 1);
-
-            String url = "";
-            String title = "";
-            try {
-                Object u = (m.metadata() != null) ? m.metadata().get("url") : null;
-                url = (u != null) ? u.toString() : "";
-                Object t = (m.metadata() != null) ? m.metadata().get("title") : null;
-                title = (t != null) ? t.toString() : "";
-            } catch (Exception ignored) {}
-
-            String text = (m.text() == null) ? "" : m.text().trim();
-            if (text.length() > 2500) text = text.substring(0, 2500) + " ...";
-
-            sb.append("SOURCE_ID: ").append(sid).append("\n");
-            if (!title.isBlank()) sb.append("TITLE: ").append(title).append("\n");
-            sb.append("URL: ").append(url).append("\n");
-            sb.append("TEXT:\n").append(text).append("\n");
-
-            if (i < matches.size() - 1) sb.append("\n---\n\n");
-        }
-        return sb.toString();
-    }
-
     private String extractUsedSourceId(String rawAnswer) {
         Matcher m = USED_SOURCE_PATTERN.matcher(rawAnswer);
         if (m.find()) {
@@ -330,9 +528,8 @@ public class AiService {
         }
     }
 
-    private UserPreference resolveCurrentUserPreferenceOrNull() {
+    private UserPreference resolveUserPreferenceOrNull(Long userId) {
         try {
-            Long userId = resolveCurrentUserIdOrNull();
             if (userId == null) return null;
             return userPreferenceService.getOrCreate(userId);
         } catch (Exception e) {
@@ -340,18 +537,6 @@ public class AiService {
         }
     }
 
-    private String formatHistory(List<ConversationMessage> history) {
-        if (history == null || history.isEmpty()) return "";
-        StringBuilder sb = new StringBuilder();
-        for (ConversationMessage m : history) {
-            String role = (m.getRole() == ConversationMessageRole.USER) ? "Kullanıcı" : "Asistan";
-            String content = (m.getContent() == null) ? "" : m.getContent().trim();
-            if (content.length() > 600) content = content.substring(0, 600) + " ...";
-            sb.append(role).append(": ").append(content).append("\n");
-        }
-        return sb.toString().trim();
-    }
-
     private boolean isConversationMemoryQuery(String q) {
         if (q == null) return false;
         String s = q.toLowerCase();
@@ -0,0 +1,15 @@
+package com.campus.backend.service;
+
+/**
+ * AiService.streamAiResponse geri çağrıları.
+ * onToken: kullanıcıya gösterilebilir (temizlenmiş) metin parçası.
+ * onComplete: hafızaya yazılan nihai cevap (kaynak linki dahil).
+ */
+public interface AiStreamListener {
+
+    void onToken(String text);
+
+    void onComplete(String finalAnswer);
+
+    void onError(Throwable error);
+}
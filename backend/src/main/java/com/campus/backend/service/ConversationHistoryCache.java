@@ -0,0 +1,98 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.ConversationMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Aktif konuşmaların son max-messages mesajı (kronolojik, değişmez liste).
+ *
+ * - Okuma: isabette DB'ye gidilmez; ıskada loader (DB + write-behind bekleyenleri) bir kez çalışır.
+ * - append: kayıt varsa mesaj eklenir ve liste kırpılır; yoksa dokunulmaz (sonraki okuma yükler).
+ *   Yükleme ile append aynı anahtarda sıralanır (Caffeine compute); yükleme mesajı zaten
+ *   görmüşse (aynı nesne ya da aynı id) tekrar eklenmez.
+ * - Tahliye: idle-ttl boyunca okunmayan/yazılmayan konuşma düşer; toplam boyut max-weight-mb'ı
+ *   (mesaj metni uzunluğuyla tahmini) aşarsa en az kullanılanlar düşer.
+ *
+ * Metrikler: cache.gets{cache=conversation_history,result=hit|miss}, cache.size,
+ * cache.evictions, conversation.history.cache.hit.ratio.
+ */
+@Component
+public class ConversationHistoryCache {
+
+    private static final int MESSAGE_OVERHEAD_BYTES = 160; // entity + liste referansı, kabaca
+
+    private final Cache<Long, List<ConversationMessage>> cache;
+    private final boolean enabled;
+    private final int maxMessages;
+
+    public ConversationHistoryCache(
+            MeterRegistry registry,
+            @Value("${app.conversation.history-cache.enabled:true}") boolean enabled,
+            @Value("${app.conversation.history-cache.max-messages:12}") int maxMessages,
+            @Value("${app.conversation.history-cache.max-weight-mb:64}") long maxWeightMb,
+            @Value("${app.conversation.history-cache.idle-ttl:30m}") Duration idleTtl
+    ) {
+        this.enabled = enabled;
+        this.maxMessages = maxMessages;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightMb * 1024 * 1024)
+                .weigher((Long id, List<ConversationMessage> messages) -> weigh(messages))
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "conversation_history");
+        Gauge.builder("conversation.history.cache.hit.ratio", cache, c -> c.stats().hitRate()).register(registry);
+    }
+
+    /** Son limit mesaj; limit önbellek derinliğini aşarsa (ya da kapalıysa) doğrudan loader. */
+    public List<ConversationMessage> get(Long conversationId, int limit,
+                                         Function<Integer, List<ConversationMessage>> loader) {
+        if (!enabled || limit > maxMessages) return loader.apply(limit);
+
+        List<ConversationMessage> cached = cache.get(conversationId, id -> List.copyOf(loader.apply(maxMessages)));
+        return new ArrayList<>(cached.subList(Math.max(0, cached.size() - limit), cached.size()));
+    }
+
+    /** Yeni mesajı önbellekteki konuşmaya ekler (yalnızca konuşma önbellekteyse). */
+    public void append(Long conversationId, ConversationMessage message) {
+        if (!enabled || conversationId == null || message == null) return;
+
+        cache.asMap().computeIfPresent(conversationId, (id, messages) -> {
+            for (ConversationMessage m : messages) {
+                if (m == message || (m.getId() != null && m.getId().equals(message.getId()))) return messages;
+            }
+            List<ConversationMessage> next = new ArrayList<>(messages.size() + 1);
+            next.addAll(messages);
+            next.add(message);
+            next.sort(Comparator.comparing(ConversationMessage::getCreatedAt,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+            return List.copyOf(next.subList(Math.max(0, next.size() - maxMessages), next.size()));
+        });
+    }
+
+    /** Konuşmayı önbellekten düşürür (yazılamayan mesajlar); sonraki okuma loader'dan yükler. */
+    public void evict(Long conversationId) {
+        if (conversationId != null) cache.invalidate(conversationId);
+    }
+
+    private static int weigh(List<ConversationMessage> messages) {
+        long bytes = 0;
+        for (ConversationMessage m : messages) {
+            bytes += MESSAGE_OVERHEAD_BYTES + 2L * (m.getContent() == null ? 0 : m.getContent().length());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+}
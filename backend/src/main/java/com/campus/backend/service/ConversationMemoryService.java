@@ -8,9 +8,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +20,8 @@ public class ConversationMemoryService {
 
     private final ConversationRepository conversationRepository;
     private final ConversationMessageRepository messageRepository;
+    private final ConversationMessageWriter messageWriter;   // write-behind (app.conversation.write-behind)
+    private final ConversationHistoryCache historyCache;     // son mesajlar; isabette DB'ye gidilmez
 
     @Transactional
     public Conversation getOrCreate(Long userId, String conversationKey) {
@@ -30,8 +34,34 @@ public class ConversationMemoryService {
                 });
     }
 
+    /** Kayan özeti yazar; özet konuşmanın mevcut özetinden daha ileri değilse yok sayılır. */
+    @Transactional
+    public boolean saveSummary(Long conversationId, String summary, Instant summarizedUntil) {
+        return conversationRepository.updateSummary(conversationId, summary, summarizedUntil, Instant.now()) > 0;
+    }
+
     @Transactional(readOnly = true)
+    public Optional<Conversation> findConversation(Long conversationId) {
+        return conversationRepository.findById(conversationId);
+    }
+
+    /**
+     * Kronolojik son mesajlar; write-behind açıksa henüz yazılmamış mesajlar da dahil (read-your-writes).
+     * Önbellek isabetinde DB'ye (ve bağlantı havuzuna) gidilmez; ıskada sorgu repository'nin
+     * kendi readOnly transaction'ında çalışır.
+     */
     public List<ConversationMessage> getLastMessages(Long conversationId, int limit) {
+        return historyCache.get(conversationId, limit, n -> loadLastMessages(conversationId, n));
+    }
+
+    private List<ConversationMessage> loadLastMessages(Long conversationId, int limit) {
+        if (messageWriter.isEnabled()) {
+            return messageWriter.withPending(conversationId, limit, () -> findLastMessages(conversationId, limit));
+        }
+        return findLastMessages(conversationId, limit);
+    }
+
+    private List<ConversationMessage> findLastMessages(Long conversationId, int limit) {
         var page = messageRepository.findByConversation_IdOrderByCreatedAtDesc(
                 conversationId,
                 PageRequest.of(0, limit)
@@ -43,15 +73,20 @@ public class ConversationMemoryService {
         return desc;
     }
 
-    @Transactional
+    /** Write-behind açıksa kuyruğa alır ve hemen döner; kapalıysa kendi transaction'ında yazar. */
     public void append(Conversation conversation, ConversationMessageRole role, String content) {
         if (conversation == null) return;
         if (content == null) content = "";
 
+        if (messageWriter.isEnabled()) {
+            historyCache.append(conversation.getId(), messageWriter.enqueue(conversation, role, content));
+            return;
+        }
+
         ConversationMessage m = new ConversationMessage();
         m.setConversation(conversation);
         m.setRole(role);
         m.setContent(content);
-        messageRepository.save(m);
+        historyCache.append(conversation.getId(), messageRepository.save(m));
     }
 }
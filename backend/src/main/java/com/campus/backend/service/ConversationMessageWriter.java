@@ -0,0 +1,259 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.Conversation;
+import com.campus.backend.entity.ConversationMessage;
+import com.campus.backend.entity.ConversationMessageRole;
+import com.campus.backend.repository.ConversationMessageBulkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sohbet mesajları için write-behind: append isteği kuyruğa girer, arka plan yazıcısı
+ * mesajları max-batch'lik JDBC batch'leriyle yazar. Kullanıcı LLM'i bekledikten sonra
+ * bir de iki ayrı INSERT + commit beklemez.
+ *
+ * - Kuyruk sınırlıdır (queue-capacity); doluysa mesaj çağıran thread'de tek satırlık bir
+ *   transaction ile hemen yazılır (geri basınç). Hiçbir yolda bağlantı tutarken kilit beklenmez.
+ * - Bir mesaj en fazla max-delay bekler; paket dolarsa daha erken yazılır.
+ * - Okuma tutarlılığı (kilitsiz): yazılmamış mesajlar konuşma bazında bekleyen listesinde durur,
+ *   commit'ten sonra listeden çıkar. withPending önce listenin görüntüsünü, sonra DB'yi okur:
+ *   görüntüde olmayan mesaj okumadan önce commit edilmiştir, DB'de görünür; hem görüntüde hem
+ *   DB'de olan (arada commit edilen) createdAt ile tekilleştirilir. Tutarlılık süreç içidir (tek instance).
+ * - createdAt kuyruğa girişte ve kesin artan verilir (süreç içinde tekil); USER/ASSISTANT sırası
+ *   yazım sırasından bağımsızdır.
+ * - max-attempts denemede yazılamayan paket bırakılır: bekleyen listesinden çıkar, konuşmaların
+ *   geçmiş önbelleği düşürülür (DB'de olmayan mesaj gösterilmez), conversation.write-behind.dropped artar.
+ * - Kapanışta kuyruk boşaltılır; kapanıştan sonra gelen mesajlar çağıran thread'de yazılır.
+ */
+@Slf4j
+@Component
+public class ConversationMessageWriter {
+
+    private final ConversationMessageBulkRepository bulkRepo;
+    private final ConversationHistoryCache historyCache;
+    private final TransactionTemplate tx;
+
+    private final boolean enabled;
+    private final int maxBatch;
+    private final Duration maxDelay;
+    private final int maxAttempts;
+
+    private final BlockingQueue<ConversationMessage> queue;
+    private final Map<Long, List<ConversationMessage>> pending = new ConcurrentHashMap<>();
+    private final Counter dropped;
+    private final Object clock = new Object();
+    private Instant lastCreatedAt = Instant.EPOCH;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean closed;
+
+    public ConversationMessageWriter(
+            ConversationMessageBulkRepository bulkRepo,
+            ConversationHistoryCache historyCache,
+            PlatformTransactionManager txManager,
+            MeterRegistry registry,
+            @Value("${app.conversation.write-behind.enabled:true}") boolean enabled,
+            @Value("${app.conversation.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.conversation.write-behind.max-batch:200}") int maxBatch,
+            @Value("${app.conversation.write-behind.max-delay:200ms}") Duration maxDelay,
+            @Value("${app.conversation.write-behind.max-attempts:3}") int maxAttempts
+    ) {
+        this.bulkRepo = bulkRepo;
+        this.historyCache = historyCache;
+        this.tx = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        Gauge.builder("conversation.write-behind.queue", queue, q -> q.size()).register(registry);
+        this.dropped = Counter.builder("conversation.write-behind.dropped")
+                .description("Yazılamayıp bırakılan sohbet mesajları")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        running = true;
+        thread = new Thread(this::loop, "conversation-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Kapanış: yazıcıyı durdurur ve kuyrukta kalanları yazar. */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        closed = true; // bundan sonra enqueue çağıran thread'de yazar
+        if (thread != null) {
+            running = false;
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        int written = drainQueue();
+        if (written > 0) log.info("Sohbet yazıcısı kapanışta {} mesaj yazdı", written);
+    }
+
+    /** Mesajı kuyruğa alır; dönen nesne bekleyen listesindekiyle aynıdır (id'siz). */
+    public ConversationMessage enqueue(Conversation conversation, ConversationMessageRole role, String content) {
+        ConversationMessage m = new ConversationMessage();
+        m.setConversation(conversation);
+        m.setRole(role);
+        m.setContent(content);
+        m.setCreatedAt(nextCreatedAt());
+
+        // liste yalnızca compute* içinde değişir/okunur (anahtar bazında atomik)
+        pending.compute(conversation.getId(), (id, list) -> {
+            if (list == null) list = new ArrayList<>();
+            list.add(m);
+            return list;
+        });
+        if (closed || !queue.offer(m)) {
+            write(List.of(m)); // kuyruk dolu ya da yazıcı kapandı: bu thread'de tek satır yaz
+        } else if (closed) {
+            drainQueue(); // kapanışla yarıştı: shutdown boşaltmayı kaçırmış olabilir
+        }
+        return m;
+    }
+
+    /**
+     * DB'deki son mesajlar (persisted: kronolojik) + henüz yazılmamış olanlar, son limit kadar.
+     * Bekleyenlerin görüntüsü persisted'dan önce alınır; iki tarafta da görünen mesaj bir kez döner.
+     */
+    public List<ConversationMessage> withPending(Long conversationId, int limit,
+                                                Supplier<List<ConversationMessage>> persisted) {
+        List<ConversationMessage> waiting = new ArrayList<>();
+        pending.computeIfPresent(conversationId, (id, list) -> {
+            waiting.addAll(list);
+            return list;
+        });
+
+        List<ConversationMessage> merged = new ArrayList<>(persisted.get());
+        if (!waiting.isEmpty()) {
+            Set<Instant> written = new HashSet<>();
+            for (ConversationMessage m : merged) written.add(m.getCreatedAt());
+            for (ConversationMessage m : waiting) {
+                if (!written.contains(m.getCreatedAt())) merged.add(m);
+            }
+        }
+        if (merged.isEmpty()) return merged;
+        merged.sort(Comparator.comparing(ConversationMessage::getCreatedAt));
+        return (merged.size() <= limit) ? merged : new ArrayList<>(merged.subList(merged.size() - limit, merged.size()));
+    }
+
+    private void loop() {
+        List<ConversationMessage> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                ConversationMessage first = queue.take();
+                batch.add(first);
+                // ilk mesajdan itibaren en fazla max-delay bekle; paket dolarsa hemen yaz
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) break;
+                    ConversationMessage next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // kapanış: elde kalan paket aşağıda yazılır, kuyruktakiler shutdown'da
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /** Kuyrukta kalanları çağıran thread'de max-batch'lik paketlerle yazar; yazılan mesaj sayısını döner. */
+    private int drainQueue() {
+        int total = 0;
+        List<ConversationMessage> rest = new ArrayList<>(maxBatch);
+        while (queue.drainTo(rest, maxBatch) > 0) {
+            write(rest);
+            total += rest.size();
+            rest.clear();
+        }
+        return total;
+    }
+
+    /**
+     * Paketi yazar; geçici hatada max-attempts kadar dener, sonra mesajları bırakır (loglanır,
+     * geçmiş önbelleği düşürülür). Commit'ten sonra mesajlar bekleyen listesinden çıkar.
+     */
+    private void write(List<ConversationMessage> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                long start = System.nanoTime();
+                tx.executeWithoutResult(status -> bulkRepo.insertAll(batch));
+                removePending(batch);
+                log.debug("Sohbet mesajları yazıldı: {} mesaj ({} ms)", batch.size(), (System.nanoTime() - start) / 1_000_000);
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Sohbet mesajları {} denemede yazılamadı, {} mesaj bırakıldı", attempt, batch.size(), e);
+                    removePending(batch);
+                    dropped.increment(batch.size());
+                    // önbellek DB'de olmayan mesajları göstermesin; sonraki okuma DB'den yükler
+                    batch.stream().map(m -> m.getConversation().getId()).distinct().forEach(historyCache::evict);
+                    return;
+                }
+                log.warn("Sohbet mesajları yazılamadı ({}/{}): {}", attempt, maxAttempts, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100L << attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt(); // kapanış: kalan denemeler beklemeden
+                }
+            }
+        }
+    }
+
+    private void removePending(List<ConversationMessage> written) {
+        for (ConversationMessage m : written) {
+            pending.computeIfPresent(m.getConversation().getId(), (id, list) -> {
+                list.removeIf(x -> x == m); // @Data equals yerine kimlik
+                return list.isEmpty() ? null : list;
+            });
+        }
+    }
+
+    /** Veritabanı çözünürlüğünde (mikrosaniye) kesin artan zaman damgası. */
+    private Instant nextCreatedAt() {
+        synchronized (clock) {
+            Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+            lastCreatedAt = now.isAfter(lastCreatedAt) ? now : lastCreatedAt.plus(1, ChronoUnit.MICROS);
+            return lastCreatedAt;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.Conversation;
+import com.campus.backend.entity.ConversationMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Konuşma sıkıştırma: eski turlar Conversation.summary'de kayan bir özete katlanır, prompt'a
+ * özet + özetlenmemiş son mesajlar girer. Uzun oturumlarda geçmiş token'ı konuşma uzunluğuyla büyümez.
+ *
+ * - Konuşmada trigger-messages'tan fazla mesaj olunca başlar.
+ * - Son keep-messages mesaj (son tur) hep ham kalır; ondan eski özetlenmemiş mesajlar
+ *   batch-messages'a ulaşınca önceki özetle birlikte LLM'e verilip yeni özet üretilir.
+ * - Tur kaydedildikten sonra aiExecutor'da çalışır (kullanıcı beklemez); aynı konuşmada
+ *   aynı anda tek özetleme. Özet henüz yazılmadıysa sonraki tur özetlenmemiş mesajları
+ *   ham geçmiş olarak görür; bilgi kaybı olmaz.
+ * - Mesajlar ConversationMemoryService.getLastMessages'tan (önbellek + write-behind) okunur;
+ *   window, trigger + batch'ten büyük olmalıdır ki özetlenmemiş mesaj pencereden kaçmasın.
+ *
+ * Metrikler: conversation.summary.runs{result=ok|failed}, conversation.summary.latency;
+ * etki ai.prompt.tokens{section=history} ile izlenir.
+ */
+@Slf4j
+@Component
+public class ConversationSummarizer {
+
+    private final ConversationMemoryService conversationMemoryService;
+    private final ChatLanguageModel chatModel;
+    private final PromptBuilder promptBuilder;
+    private final ExecutorService aiExecutor;
+
+    private final boolean enabled;
+    private final int triggerMessages;
+    private final int keepMessages;
+    private final int batchMessages;
+    private final int window;
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final Counter ok;
+    private final Counter failed;
+    private final Timer latency;
+
+    public ConversationSummarizer(
+            ConversationMemoryService conversationMemoryService,
+            ChatLanguageModel chatModel,
+            PromptBuilder promptBuilder,
+            MeterRegistry registry,
+            @Qualifier("aiExecutor") ExecutorService aiExecutor,
+            @Value("${app.conversation.summary.enabled:true}") boolean enabled,
+            @Value("${app.conversation.summary.trigger-messages:6}") int triggerMessages,
+            @Value("${app.conversation.summary.keep-messages:2}") int keepMessages,
+            @Value("${app.conversation.summary.batch-messages:4}") int batchMessages,
+            @Value("${app.conversation.summary.window:12}") int window
+    ) {
+        this.conversationMemoryService = conversationMemoryService;
+        this.chatModel = chatModel;
+        this.promptBuilder = promptBuilder;
+        this.aiExecutor = aiExecutor;
+        this.enabled = enabled;
+        this.triggerMessages = triggerMessages;
+        this.keepMessages = keepMessages;
+        this.batchMessages = batchMessages;
+        this.window = window;
+
+        this.ok = Counter.builder("conversation.summary.runs").tag("result", "ok").register(registry);
+        this.failed = Counter.builder("conversation.summary.runs").tag("result", "failed").register(registry);
+        this.latency = Timer.builder("conversation.summary.latency")
+                .description("Kayan özet güncellemesinin (LLM çağrısı dahil) süresi")
+                .register(registry);
+    }
+
+    /** Prompt'a girecek ham geçmiş: özet varsa yalnızca özetten sonraki mesajlar. */
+    public List<ConversationMessage> unsummarized(Conversation conversation, List<ConversationMessage> history) {
+        if (conversation == null || conversation.getSummarizedUntil() == null) return history;
+        Instant until = conversation.getSummarizedUntil();
+        return history.stream()
+                .filter(m -> m.getCreatedAt() == null || micros(m.getCreatedAt()).isAfter(until))
+                .toList();
+    }
+
+    /** Tur kaydedildikten sonra çağrılır; gerekiyorsa özetlemeyi arka planda başlatır. */
+    public void maybeSummarizeAsync(Conversation conversation) {
+        if (!enabled || conversation == null || conversation.getId() == null) return;
+        Long id = conversation.getId();
+        if (!running.add(id)) return; // bu konuşmada özetleme zaten sürüyor; sonraki tur yetişir
+
+        try {
+            aiExecutor.execute(() -> {
+                try {
+                    summarize(id);
+                } finally {
+                    running.remove(id);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.remove(id); // executor kapanıyor
+        }
+    }
+
+    private void summarize(Long conversationId) {
+        List<ConversationMessage> recent = conversationMemoryService.getLastMessages(conversationId, window);
+        if (recent.size() <= triggerMessages) return; // kısa konuşma (ya da pencere dolmadı): ham geçmiş yeter
+
+        Conversation conversation = conversationMemoryService.findConversation(conversationId).orElse(null);
+        if (conversation == null) return;
+
+        List<ConversationMessage> pending = unsummarized(conversation, recent);
+        int foldCount = pending.size() - keepMessages;
+        if (foldCount < batchMessages) return;
+
+        List<ConversationMessage> fold = pending.subList(0, foldCount);
+        Instant until = fold.get(fold.size() - 1).getCreatedAt();
+        if (until == null) return;
+        until = micros(until); // DB çözünürlüğü: geri okunan değerle karşılaştırma tutarlı kalsın
+
+        long start = System.nanoTime();
+        try {
+            String summary = chatModel.generate(promptBuilder.buildSummaryPrompt(conversation.getSummary(), fold));
+            if (summary == null || summary.isBlank()) {
+                failed.increment();
+                return;
+            }
+            boolean saved = conversationMemoryService.saveSummary(conversationId, promptBuilder.clipSummary(summary), until);
+            ok.increment();
+            log.debug("Konuşma {} özetlendi: {} mesaj katlandı{}", conversationId, fold.size(),
+                    saved ? "" : " (daha yeni özet var, yazılmadı)");
+        } catch (Exception e) {
+            // özet olmadan da doğru çalışır: ham geçmiş kullanılır, sonraki tur tekrar dener
+            failed.increment();
+            log.warn("Konuşma {} özetlenemedi: {}", conversationId, e.getMessage());
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Instant micros(Instant t) {
+        return t.truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -1,22 +1,39 @@
 package com.campus.backend.service;
 
 import com.campus.backend.entity.Announcement;
-import com.campus.backend.vector.EmbeddingService;
+import com.campus.backend.vector.Bm25Index;
 import com.campus.backend.entity.EtlJob;
+import com.campus.backend.entity.Faq;
 import com.campus.backend.entity.Source;
 import com.campus.backend.etl.AnnouncementClient;
+import com.campus.backend.etl.ContentHash;
+import com.campus.backend.etl.FaqKey;
+import com.campus.backend.etl.FetchContext;
 import com.campus.backend.etl.HtmlCleaner;
+import com.campus.backend.repository.AnnouncementBulkRepository;
 import com.campus.backend.repository.AnnouncementRepository;
 import com.campus.backend.repository.EtlJobRepository;
 import com.campus.backend.repository.FaqRepository;
+import com.campus.backend.repository.HttpValidatorRepository;
+import com.campus.backend.repository.IndexingOutboxRepository;
 import com.campus.backend.repository.SourceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -25,19 +42,76 @@ public class EtlService {
 
     private final SourceRepository sourceRepo;
     private final AnnouncementRepository annRepo;
-    private final FaqRepository faqRepo;                 // şimdilik kullanılmıyor; ileride FAQ ETL
-    private final EmbeddingService embeddingService;     // Chroma index
+    private final AnnouncementBulkRepository bulkRepo;
+    private final FaqRepository faqRepo;                 // SSS kayıtları (category=sss) ayrıca faq tablosuna
+    private final FaqMatcher faqMatcher;                 // SSS hızlı yolu; SSS değişince yenilenir
+    private final IndexingOutboxRepository outbox;       // Chroma indeksleme kuyruğu (IndexingOutboxWorker)
+    private final Bm25Index bm25Index;                   // lexical (BM25) index
     private final HtmlCleaner cleaner;
     private final EtlJobRepository jobRepo;
+    private final HttpValidatorRepository validatorRepo;
+    private final PlatformTransactionManager txManager;
 
-    @Transactional
+    @Value("${app.etl.flush-size:25}")
+    private int flushSize; // bu kadar yeni kayıt birikince kaydet + indeksleme kuyruğuna yaz + commit
+
+    private static final String FAQ_CATEGORY = "sss";
+
+    @Value("${app.etl.resume:true}")
+    private boolean resume; // yarıda kalan çalıştırmanın kontrol noktasından devam et
+
+    /**
+     * Akışlı ETL: istemci kayıtları geldikçe sink'e verir; yeni kayıtlar flush-size'lık
+     * paketler halinde kısa transaction'larla kaydedilir ve indexing_outbox'a eklenir; vektörleri
+     * IndexingOutboxWorker'lar üretir. Böylece bellek sınırlı kalır, transaction OpenAI/Chroma
+     * çağrısı beklemez ve ilk kayıtlar çekim bitmeden aranabilir olur.
+     *
+     * Değişiklik tespiti: başlık + temiz gövdenin SHA-256 özeti saklıdır. Bilinen bir kayıt
+     * tekrar gelirse yalnızca özet karşılaştırılır; farklıysa satır güncellenir ve yalnızca o
+     * duyurunun vektörleri yeniden üretilir.
+     *
+     * Hata olursa o ana kadar commit edilen paketler kalır; sonraki çalıştırma onları
+     * bilinen kayıt olarak atlar. ETag/Last-Modified yalnızca başarılı çalıştırma sonunda yazılır.
+     *
+     * Kontrol noktası: her paket commit'inde (aynı transaction'da) son kaydın konumu
+     * (sayfa / kategori / external id) EtlJob'a yazılır. Kaynağın son job'ı başarısız ya da
+     * yarıda kalmışsa (STARTED: süreç kapandı) yeni çalıştırma o konumdan devam eder
+     * ve devam ettiği job resumedFromJobId olarak yazılır.
+     *
+     * SSS: category=sss kayıtlar duyuruyla aynı commit'te faq tablosuna da yazılır (soru = başlık,
+     * cevap = temiz gövde, normalize soru anahtarı); çekim sonunda FaqMatcher yenilenir.
+     */
     public Map<String, Object> pull(AnnouncementClient client) {
+        return pull(client, Instant.now());
+    }
+
+    /** queuedAt: EtlScheduler'ın çalıştırmayı kuyruğa aldığı an (kuyruk süresi job'a yazılır). */
+    public Map<String, Object> pull(AnnouncementClient client, Instant queuedAt) {
+        String jobName = "pull_" + client.getSourceCode();
+        EtlJob previous = jobRepo.findFirstByJobNameOrderByIdDesc(jobName).orElse(null);
+        FetchContext.Cursor resumeFrom = resume ? resumableCursor(previous) : null;
+
         EtlJob job = new EtlJob();
-        job.setJobName("pull_" + client.getSourceCode());
+        job.setJobName(jobName);
         job.setStatus("STARTED");
+        job.setStartedAt(Instant.now());
+        job.setQueuedAt(queuedAt);
+        job.setQueueMs(Duration.between(queuedAt, job.getStartedAt()).toMillis());
+        if (resumeFrom != null) {
+            // bu çalıştırma da kontrol noktasına varmadan düşerse aynı yerden devam edilsin
+            job.setCursorPage(resumeFrom.page());
+            job.setCursorCategoryId(resumeFrom.categoryId());
+            job.setCursorExternalId(resumeFrom.externalId());
+            job.setResumedFromJobId(previous.getId());
+        }
         jobRepo.save(job);
 
-        int inserted = 0;
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        List<Announcement> buffer = new ArrayList<>(flushSize);
+        int[] counts = {0, 0, 0}; // eklenen, güncellenen, yazılan SSS
+        FetchContext.Cursor[] last = {null};
+        int[] sinceCheckpoint = {0};
+        long started = System.nanoTime();
 
         try {
             // 1) Kaynağı garanti et (yoksa yarat)
@@ -49,42 +123,216 @@ public class EtlService {
                         return sourceRepo.save(s);
                     });
 
-            // 2) Çek → normalize → idempotent kaydet → index
-            for (var raw : client.fetchLatest()) {
-                var exists = annRepo.findBySourceIdAndExternalId(src.getId(), raw.externalId()).isPresent();
-                if (exists) continue; // idempotent
+            // 2) Çek (artımlı: bilinen id'ler + koşullu istekler) → normalize → özet karşılaştır → kaydet → index
+            //    Bilinen kayıtlar tek sorguyla (id + içerik özeti) yüklenir; satır başına SELECT yok.
+            //    Aynı çalıştırmada tekrar gelen external id atlanır.
+            backfillContentHashes(tx, src.getId());
+            backfillFaqs(tx, src.getId(), counts);
+            Map<String, AnnouncementRepository.Fingerprint> known = new HashMap<>();
+            for (var f : annRepo.findFingerprintsBySourceId(src.getId())) known.put(f.getExternalId(), f);
+            Set<String> seen = new HashSet<>();
+            // önceki çalıştırma PARTIAL: çekilemeyen kayıtlar hangi sayfadaysa ona ulaşmak için erken durma yok
+            boolean recrawl = previous != null && "PARTIAL".equals(previous.getStatus());
+            FetchContext context = new FetchContext(known.keySet(), resumeFrom,
+                    validatorRepo.findBySourceCode(client.getSourceCode()), recrawl);
+            if (resumeFrom != null) {
+                log.info("ETL {} önceki çalıştırmanın kontrol noktasından devam ediyor: {}", client.getSourceCode(), resumeFrom);
+            }
+            if (recrawl) {
+                log.info("ETL {} önceki çalıştırma eksik kaldı (PARTIAL), çekilemeyen kayıtlar tekrar deneniyor", client.getSourceCode());
+            }
+
+            client.fetchLatest(context, raw -> {
+                if (!seen.add(raw.externalId())) return;
+                last[0] = context.position(raw.externalId());
+                sinceCheckpoint[0]++;
+
+                String title = cleaner.toText(raw.title());
+                String content = cleaner.toText(raw.htmlContent());
+                String hash = ContentHash.of(title, content);
+
+                var existing = known.get(raw.externalId());
+                if (existing != null && hash.equals(existing.getContentHash())) {
+                    // değişmemiş: maliyet yalnızca özet; uzun değişmemiş serilerde de konum ilerlesin
+                    if (buffer.isEmpty() && sinceCheckpoint[0] >= flushSize) {
+                        tx.executeWithoutResult(status -> checkpoint(job, last[0]));
+                        sinceCheckpoint[0] = 0;
+                    }
+                    return;
+                }
 
                 Announcement a = new Announcement();
+                a.setId(existing != null ? existing.getId() : null); // id doluysa güncelleme
                 a.setSource(src);
                 a.setExternalId(raw.externalId());
-                a.setTitle(cleaner.toText(raw.title()));
-                a.setContent(cleaner.toText(raw.htmlContent()));
+                a.setTitle(title);
+                a.setContent(content);
                 a.setUrl(raw.url());
                 a.setCategory(raw.category());
                 a.setPublishedAt(raw.publishedAt());
-                // scrapedAt/lang @PrePersist veya mapper’da set ediliyor
+                a.setContentHash(hash);
+                // scrapedAt/lang bulk repository'de set ediliyor
 
-                annRepo.save(a);
+                buffer.add(a);
+                if (buffer.size() >= flushSize) {
+                    flush(tx, buffer, counts, job, last[0]);
+                    sinceCheckpoint[0] = 0;
+                }
+            });
+            flush(tx, buffer, counts, job, last[0]);
 
-                // 3) Vektör indeksle
-                embeddingService.indexAnnouncement(a);
+            // ETag/Last-Modified: tüm kayıtlar commit edildikten sonra (hata olursa bir sonraki çalıştırma sayfayı tekrar çeker)
+            context.pendingValidators().forEach(v -> v.setSourceCode(client.getSourceCode()));
+            validatorRepo.saveAll(context.pendingValidators());
 
-                inserted++;
-            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info("ETL {} bitti: {} yeni, {} güncellenen duyuru, {} sn ({} kayıt/sn)", client.getSourceCode(),
+                    counts[0], counts[1], String.format("%.1f", seconds),
+                    String.format("%.1f", (counts[0] + counts[1]) / Math.max(seconds, 1e-9)));
 
-            job.setStatus("SUCCESS");
-            job.setItemCount(inserted);
-            return Map.of("ok", true, "inserted", inserted);
+            // bazı kayıtlar çekilemedi: o sayfaların doğrulayıcısı kaydedilmedi, sonraki çalıştırma tekrar dener
+            job.setStatus(context.isIncomplete() ? "PARTIAL" : "SUCCESS");
+            if (context.isIncomplete()) job.setMessage("Bazı kayıtlar çekilemedi; sonraki çalıştırmada tekrar denenecek");
+            job.setItemCount(counts[0] + counts[1]);
+            return Map.of("ok", true, "inserted", counts[0], "updated", counts[1], "resumed", resumeFrom != null,
+                    "partial", context.isIncomplete());
 
         } catch (Exception e) {
             log.error("etl failed", e);
             job.setStatus("FAILED");
+            job.setItemCount(counts[0] + counts[1]);
             job.setMessage(e.getMessage());
-            return Map.of("ok", false, "inserted", inserted, "error", e.getMessage());
+            return Map.of("ok", false, "inserted", counts[0], "updated", counts[1], "error", String.valueOf(e.getMessage()));
 
         } finally {
+            if (counts[2] > 0) faqMatcher.refreshAsync(); // hata olsa da commit edilen SSS'ler görünsün
             job.setFinishedAt(Instant.now());
+            job.setRunMs(Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis());
             jobRepo.save(job);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Paketi tek kısa transaction'da kaydeder: id'siz kayıtlar eklenir, id'liler (içeriği değişenler)
+     * güncellenir ve hepsi aynı commit'le indexing_outbox'a yazılır. Embed + Chroma yazımı
+     * IndexingOutboxWorker'dadır; transaction ağ çağrısı beklemez. BM25 (yerel) commit sonrası güncellenir.
+     */
+    private void flush(TransactionTemplate tx, List<Announcement> buffer, int[] counts,
+                       EtlJob job, FetchContext.Cursor cursor) {
+        if (buffer.isEmpty()) return;
+        List<Announcement> batch = List.copyOf(buffer);
+        buffer.clear();
+
+        List<Announcement> fresh = batch.stream().filter(a -> a.getId() == null).toList();
+        List<Announcement> changed = batch.stream().filter(a -> a.getId() != null).toList();
+
+        long start = System.nanoTime();
+        List<Announcement> inserted = tx.execute(status -> {
+            // tek çok satırlı INSERT ... ON CONFLICT DO NOTHING RETURNING (IDENTITY id'de Hibernate paketleyemez)
+            bulkRepo.insertAll(fresh);
+            List<Announcement> ins = fresh.stream().filter(a -> a.getId() != null).toList();
+            bulkRepo.updateAll(changed);
+            long writeNanos = System.nanoTime() - start;
+            log.debug("ETL yazma: {} eklenen, {} güncellenen satır, {} satır/sn", ins.size(), changed.size(),
+                    String.format("%.0f", (ins.size() + changed.size()) / Math.max(writeNanos / 1e9, 1e-9)));
+
+            List<Announcement> all = new ArrayList<>(ins);
+            all.addAll(changed);
+            // Vektör indeksleme kuyruğu: duyuru satırlarıyla aynı commit (kayıp ya da hayalet iş yok)
+            outbox.enqueue(all.stream().map(Announcement::getId).toList());
+            counts[2] += upsertFaqs(all);
+            bm25Index.addAll(all);         // commit sonrası uygulanır (güncellenenin eski dokümanı düşer)
+            job.setItemCount(counts[0] + counts[1] + ins.size() + changed.size());
+            checkpoint(job, cursor);       // kayıtlarla aynı commit: konum hiçbir zaman kayıtların önüne geçmez
+            return ins;
+        });
+        counts[0] += inserted.size();
+        counts[1] += changed.size();
+        log.info("ETL paketi kaydedildi: {} yeni, {} güncellenen duyuru ({} ms)",
+                inserted.size(), changed.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * SSS duyurularını faq satırlarına yansıtır (externalId ile eşlenir); çağıranın transaction'ında.
+     * Elle girilmiş (externalId'siz) kayıtlara dokunulmaz. Yazılan satır sayısını döner.
+     */
+    private int upsertFaqs(List<Announcement> announcements) {
+        List<Announcement> sss = announcements.stream()
+                .filter(a -> FAQ_CATEGORY.equals(a.getCategory()))
+                .toList();
+        if (sss.isEmpty()) return 0;
+
+        Map<String, Faq> existing = faqRepo.findByExternalIdIn(sss.stream().map(Announcement::getExternalId).toList())
+                .stream()
+                .collect(Collectors.toMap(Faq::getExternalId, Function.identity()));
+        List<Faq> rows = new ArrayList<>(sss.size());
+        for (Announcement a : sss) {
+            if (a.getTitle() == null || a.getTitle().isBlank() || a.getContent() == null || a.getContent().isBlank()) {
+                continue;
+            }
+            Faq f = existing.getOrDefault(a.getExternalId(), new Faq());
+            f.setExternalId(a.getExternalId());
+            f.setQuestion(a.getTitle());
+            f.setQuestionKey(FaqKey.of(a.getTitle()));
+            f.setAnswer(a.getContent());
+            f.setUrl(a.getUrl());
+            rows.add(f);
+        }
+        faqRepo.saveAll(rows);
+        return rows.size();
+    }
+
+    /** faq tablosu boşsa daha önce duyuru olarak kaydedilmiş SSS kayıtlarından bir kez doldurur. */
+    private void backfillFaqs(TransactionTemplate tx, Integer sourceId, int[] counts) {
+        if (faqRepo.count() > 0) return;
+        tx.executeWithoutResult(status -> {
+            int written = upsertFaqs(annRepo.findBySourceIdAndCategory(sourceId, FAQ_CATEGORY));
+            if (written > 0) log.info("SSS tablosu dolduruldu: {} kayıt", written);
+            counts[2] += written;
+        });
+    }
+
+    /** Konumu job satırına yazar; çağıranın transaction'ında çalışır. */
+    private void checkpoint(EtlJob job, FetchContext.Cursor cursor) {
+        if (cursor == null) return;
+        job.setCursorPage(cursor.page());
+        job.setCursorCategoryId(cursor.categoryId());
+        job.setCursorExternalId(cursor.externalId());
+        job.setCheckpointAt(Instant.now());
+        jobRepo.save(job);
+    }
+
+    /**
+     * Kaynağın son job'ı başarıyla bitmediyse ve kontrol noktası varsa o konum.
+     * STARTED kalmış job (süreç yarıda kapandı) INTERRUPTED olarak işaretlenir; aynı kaynak
+     * EtlScheduler'da tek executor'da çalıştığı için bu sırada çalışan başka bir çekim yoktur.
+     */
+    private FetchContext.Cursor resumableCursor(EtlJob previous) {
+        if (previous == null || "SUCCESS".equals(previous.getStatus()) || "PARTIAL".equals(previous.getStatus())) {
+            return null; // sona kadar gitti; PARTIAL'da eksikler baştan gezilerek tekrar denenir
+        }
+
+        if ("STARTED".equals(previous.getStatus())) {
+            previous.setStatus("INTERRUPTED");
+            previous.setMessage("Süreç çalıştırma bitmeden kapandı");
+            jobRepo.save(previous);
+        }
+        if (previous.getCursorPage() == null && previous.getCursorCategoryId() == null
+                && previous.getCursorExternalId() == null) {
+            return null;
+        }
+        return new FetchContext.Cursor(previous.getCursorPage(), previous.getCursorCategoryId(),
+                previous.getCursorExternalId());
+    }
+
+    /** İçerik özeti olmayan eski kayıtların özetini DB'deki metinden bir kez doldurur (yeniden embed yok). */
+    private void backfillContentHashes(TransactionTemplate tx, Integer sourceId) {
+        tx.executeWithoutResult(status -> {
+            List<Announcement> legacy = annRepo.findBySourceIdAndContentHashIsNull(sourceId);
+            for (Announcement a : legacy) {
+                a.setContentHash(ContentHash.of(a.getTitle(), a.getContent())); // dirty checking ile güncellenir
+            }
+            if (!legacy.isEmpty()) log.info("İçerik özeti dolduruldu: {} duyuru", legacy.size());
+        });
+    }
+}
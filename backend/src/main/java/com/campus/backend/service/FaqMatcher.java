@@ -0,0 +1,208 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.Faq;
+import com.campus.backend.etl.FaqKey;
+import com.campus.backend.repository.FaqRepository;
+import com.campus.backend.vector.EmbeddingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * SSS hızlı yolu: soru bir SSS kaydıyla eşleşirse küratörlü cevap LLM'e gitmeden döner.
+ *
+ *  1) Tam eşleşme: FaqKey (normalize soru özeti) bellekteki haritada; ağ/DB çağrısı yok.
+ *     Aynı anahtarda farklı cevaplı birden fazla kayıt varsa belirsizdir, eşleşme sayılmaz.
+ *  2) Vektör eşleşmesi: sorgu embedding'i (QueryEmbeddingCache; RAG araması aynı vektörü
+ *     tekrar kullanır) ile SSS soru vektörleri arasında kosinüs mesafesi. En yakın kayıt
+ *     max-distance altında ve ikinci en yakından en az min-margin uzaksa kabul edilir.
+ *
+ * SSS soruları az (binler) olduğu için vektörler bellekte düz dizi olarak tutulur; refresh
+ * yalnızca yeni/değişen soruları embed eder. ETL SSS yazdığında refresh çağrılır.
+ */
+@Slf4j
+@Component
+public class FaqMatcher {
+
+    public record Match(Long faqId, String answer, String url, String method, double distance) {}
+
+    private record Entry(Long id, String key, String answer, String url) {}
+
+    /** Değişmez görüntü: okuma kilitsiz, refresh yeni görüntüyü tek atamayla yayınlar. */
+    private record Snapshot(Map<String, Entry> byKey, List<Entry> entries, List<float[]> vectors) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), List.of(), List.of());
+    }
+
+    private final FaqRepository faqRepo;
+    private final EmbeddingService embeddingService;
+    private final ExecutorService aiExecutor;
+
+    private final boolean enabled;
+    private final double maxDistance;
+    private final double minMargin;
+
+    private final Counter exactHits;
+    private final Counter vectorHits;
+    private final Counter misses;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final Map<String, float[]> vectorsByQuestion = new HashMap<>(); // normalize soru -> birim vektör
+
+    public FaqMatcher(
+            FaqRepository faqRepo,
+            EmbeddingService embeddingService,
+            MeterRegistry registry,
+            @Qualifier("aiExecutor") ExecutorService aiExecutor,
+            @Value("${app.faq.enabled:true}") boolean enabled,
+            @Value("${app.faq.max-distance:0.06}") double maxDistance,
+            @Value("${app.faq.min-margin:0.02}") double minMargin
+    ) {
+        this.faqRepo = faqRepo;
+        this.embeddingService = embeddingService;
+        this.aiExecutor = aiExecutor;
+        this.enabled = enabled;
+        this.maxDistance = maxDistance;
+        this.minMargin = minMargin;
+
+        this.exactHits = Counter.builder("faq.match").tag("result", "exact").register(registry);
+        this.vectorHits = Counter.builder("faq.match").tag("result", "vector").register(registry);
+        this.misses = Counter.builder("faq.match").tag("result", "miss").register(registry);
+        Gauge.builder("faq.entries", this, m -> m.snapshot.entries().size()).register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) refreshAsync();
+    }
+
+    public void refreshAsync() {
+        CompletableFuture.runAsync(this::refresh, aiExecutor);
+    }
+
+    /** SSS tablosunu yeniden yükler; yalnızca daha önce embed edilmemiş sorular embed edilir. */
+    public synchronized void refresh() {
+        if (!enabled) return;
+        try {
+            List<Faq> faqs = faqRepo.findAll();
+
+            Map<String, Entry> byKey = new HashMap<>();
+            Map<String, Boolean> ambiguous = new HashMap<>();
+            List<Entry> entries = new ArrayList<>(faqs.size());
+            List<String> questions = new ArrayList<>(faqs.size());
+            for (Faq f : faqs) {
+                String key = (f.getQuestionKey() != null) ? f.getQuestionKey() : FaqKey.of(f.getQuestion());
+                if (key == null || f.getAnswer() == null || f.getAnswer().isBlank()) continue;
+
+                Entry e = new Entry(f.getId(), key, f.getAnswer().trim(), f.getUrl());
+                entries.add(e);
+                questions.add(FaqKey.normalize(f.getQuestion()));
+
+                Entry previous = byKey.putIfAbsent(key, e);
+                if (previous != null && !previous.answer().equals(e.answer())) ambiguous.put(key, true);
+            }
+            ambiguous.keySet().forEach(byKey::remove);
+
+            List<float[]> vectors = vectorsFor(questions);
+            snapshot = new Snapshot(Map.copyOf(byKey), List.copyOf(entries), vectors);
+            log.info("SSS eşleştirici yüklendi: {} kayıt ({} belirsiz anahtar)", entries.size(), ambiguous.size());
+        } catch (Exception e) {
+            log.warn("SSS eşleştirici yüklenemedi, önceki görüntü kullanılıyor: {}", e.getMessage());
+        }
+    }
+
+    /** Yalnızca normalize soru tam eşleşmesi (yerel, mikrosaniyeler). */
+    public Optional<Match> matchExact(String query) {
+        if (!enabled) return Optional.empty();
+        String key = FaqKey.of(query);
+        Entry e = (key == null) ? null : snapshot.byKey().get(key);
+        if (e == null) return Optional.empty();
+        exactHits.increment();
+        return Optional.of(new Match(e.id(), e.answer(), e.url(), "exact", 0.0));
+    }
+
+    /** Vektör eşleşmesi; sorgu embedding'i QueryEmbeddingCache'e yazılır (RAG araması tekrar kullanır). */
+    public Optional<Match> matchSimilar(String query) {
+        Snapshot s = snapshot;
+        if (!enabled || s.entries().isEmpty()) return Optional.empty();
+
+        float[] q = normalize(embeddingService.embedQuery(query));
+        double[] distances = new double[s.vectors().size()];
+        int best = -1;
+        for (int i = 0; i < distances.length; i++) {
+            float[] v = s.vectors().get(i);
+            distances[i] = (v == null) ? Double.MAX_VALUE : 1.0 - dot(q, v);
+            if (v != null && (best < 0 || distances[i] < distances[best])) best = i;
+        }
+
+        if (best >= 0 && distances[best] <= maxDistance) {
+            // rakip: farklı cevaplı en yakın kayıt (farklı kategoride aynı soru/cevap marjı bozmasın)
+            Entry e = s.entries().get(best);
+            double runnerUp = Double.MAX_VALUE;
+            for (int i = 0; i < distances.length; i++) {
+                if (i != best && !s.entries().get(i).answer().equals(e.answer())) {
+                    runnerUp = Math.min(runnerUp, distances[i]);
+                }
+            }
+            if (runnerUp - distances[best] >= minMargin) {
+                vectorHits.increment();
+                return Optional.of(new Match(e.id(), e.answer(), e.url(), "vector", distances[best]));
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /** Soru vektörleri (entries ile aynı sıra); embed edilemeyenler null kalır, tam eşleşme yine çalışır. */
+    private List<float[]> vectorsFor(List<String> questions) {
+        List<String> missing = questions.stream()
+                .filter(q -> !q.isEmpty() && !vectorsByQuestion.containsKey(q))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            try {
+                List<float[]> embedded = embeddingService.embedTexts(missing);
+                for (int i = 0; i < missing.size(); i++) {
+                    vectorsByQuestion.put(missing.get(i), normalize(embedded.get(i)));
+                }
+            } catch (Exception e) {
+                log.warn("SSS soruları embed edilemedi ({} soru), yalnızca tam eşleşme: {}", missing.size(), e.getMessage());
+            }
+        }
+        vectorsByQuestion.keySet().retainAll(questions);
+
+        List<float[]> out = new ArrayList<>(questions.size());
+        for (String q : questions) out.add(vectorsByQuestion.get(q));
+        return out;
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        float[] out = new float[v.length];
+        if (norm == 0) return out;
+        for (int i = 0; i < v.length; i++) out[i] = (float) (v[i] / norm);
+        return out;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) return 0.0;
+        double d = 0;
+        for (int i = 0; i < a.length; i++) d += a[i] * b[i];
+        return d;
+    }
+}
@@ -0,0 +1,171 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.Announcement;
+import com.campus.backend.repository.AnnouncementRepository;
+import com.campus.backend.repository.IndexingOutboxRepository;
+import com.campus.backend.repository.IndexingOutboxRepository.Item;
+import com.campus.backend.vector.EmbeddingService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * indexing_outbox'ı boşaltan arka plan worker'ları.
+ *
+ * - workers kadar thread; her biri batch-size'lık paket alır (SKIP LOCKED, kısa transaction),
+ *   duyuruları DB'den okuyup EmbeddingService.reindexAnnouncements ile embed eder ve yazar.
+ *   Embed/Chroma çağrıları sırasında açık transaction yoktur.
+ * - Paket hata verirse kayıtlar tek tek denenir (bozuk tek kayıt tüm paketi düşürmesin);
+ *   başarısız kayıt üstel geri çekilmeyle (initial-backoff * 2^deneme, en fazla max-backoff)
+ *   tekrar denenir, max-attempts'e ulaşınca DEAD olur.
+ * - Kuyruk boşsa poll-interval kadar beklenir. İndeksleme hızı ETL'den bağımsız ölçeklenir.
+ * - Semantik cevap önbelleği burada, en az bir kayıt indekslenince temizlenir (vektörler aramada
+ *   görünür olduğu an); tamamen başarısız paket önbelleğe dokunmaz.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexingOutboxWorker {
+
+    private final IndexingOutboxRepository outbox;
+    private final AnnouncementRepository annRepo;
+    private final EmbeddingService embeddingService;
+    private final SemanticAnswerCache answerCache;
+
+    @Value("${app.indexing.workers:2}")
+    private int workers;
+
+    @Value("${app.indexing.batch-size:64}")
+    private int batchSize;
+
+    @Value("${app.indexing.poll-interval:2s}")
+    private Duration pollInterval;
+
+    @Value("${app.indexing.lease:5m}")
+    private Duration lease;                 // alınan paketin işlenme süresi üst sınırı
+
+    @Value("${app.indexing.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.indexing.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${app.indexing.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    private ExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (workers <= 0) {
+            log.info("İndeksleme worker'ları kapalı (app.indexing.workers=0)");
+            return;
+        }
+        executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "indexing-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::loop);
+        }
+        log.info("İndeksleme worker'ları başladı: {} worker, paket {}", workers, batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    private void loop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (drainOnce() == 0) {
+                    TimeUnit.MILLISECONDS.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // DB erişilemiyor vb.: worker ölmesin
+                log.error("İndeksleme kuyruğu okunamadı", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollInterval.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /** Bir paket alır ve işler; alınan satır sayısını döner. */
+    int drainOnce() {
+        List<Item> items = outbox.claim(batchSize, lease);
+        if (items.isEmpty()) return 0;
+
+        long start = System.nanoTime();
+        int completed = 0;
+        try {
+            index(items);
+            outbox.complete(items);
+            completed = items.size();
+        } catch (Exception e) {
+            if (items.size() == 1) {
+                fail(items.get(0), e);
+            } else {
+                log.warn("İndeksleme paketi başarısız ({} kayıt), tek tek denenecek: {}", items.size(), e.getMessage());
+                for (Item item : items) {
+                    try {
+                        index(List.of(item));
+                        outbox.complete(List.of(item));
+                        completed++;
+                    } catch (Exception single) {
+                        fail(item, single);
+                    }
+                }
+            }
+        }
+        if (completed > 0) answerCache.invalidateAll(); // vektörler değişti: önbellekteki cevaplar eskimiş olabilir
+        log.debug("İndeksleme paketi: {}/{} kayıt ({} ms)", completed, items.size(), (System.nanoTime() - start) / 1_000_000);
+        return items.size();
+    }
+
+    /** Duyuruları güncel halleriyle okur ve parçalarını yazar; silinmiş duyurular atlanır. */
+    private void index(List<Item> items) {
+        Map<Long, Announcement> byId = annRepo.findAllById(items.stream().map(Item::announcementId).toList())
+                .stream()
+                .collect(Collectors.toMap(Announcement::getId, Function.identity()));
+        List<Announcement> announcements = new ArrayList<>(byId.size());
+        for (Item item : items) {
+            Announcement a = byId.get(item.announcementId());
+            if (a != null) announcements.add(a);
+        }
+        embeddingService.reindexAnnouncements(announcements);
+    }
+
+    private void fail(Item item, Exception e) {
+        int attempt = item.attempts() + 1;
+        long backoffMs = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(item.attempts(), 20));
+        outbox.fail(item, String.valueOf(e.getMessage()), Instant.now().plusMillis(backoffMs), maxAttempts);
+        if (attempt >= maxAttempts) {
+            log.error("Duyuru {} indekslenemedi, {} denemeden sonra DEAD", item.announcementId(), attempt, e);
+        } else {
+            log.warn("Duyuru {} indekslenemedi ({}/{}), {} ms sonra tekrar: {}",
+                    item.announcementId(), attempt, maxAttempts, backoffMs, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.ConversationMessage;
+import com.campus.backend.entity.ConversationMessageRole;
+import com.campus.backend.vector.DocumentMatch;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token bütçeli prompt kurucu.
+ *
+ * rag-template.txt açılışta bir kez %s yerlerinden parçalanır (String.format her istekte
+ * şablonu yeniden ayrıştırmaz) ve sabit parçaların token sayısı önceden hesaplanır.
+ *
+ * Bütçe (app.prompt.*), model tokenizer'ı ile yerel olarak sayılır:
+ *  - politika + şablon + soru: zorunlu, kesilmez
+ *  - geçmiş: history-max-tokens'a kadar; varsa önce kayan özet (summary-max-tokens'a kırpılır),
+ *    kalan pay en yeni mesajlardan geriye doğru (en eskiler düşer)
+ *  - bağlam: kalan bütçe; sıralamaya göre eklenir, sığmayan en düşük sıralı kaynaklar düşer
+ */
+@Slf4j
+@Component
+public class PromptBuilder {
+
+    /** Kurulan prompt ve bölüm bazında token sayıları. usedContext, S1..Sn sırasıyla prompt'a girenlerdir. */
+    public record BuiltPrompt(
+            String text,
+            List<DocumentMatch> usedContext,
+            int totalTokens,
+            int policyTokens,
+            int historyTokens,
+            int contextTokens,
+            int droppedContext
+    ) {}
+
+    private static final String NO_HISTORY = "(Geçmiş yok)\n";
+
+    private final OpenAiTokenizer tokenizer;
+
+    private final int maxTokens;
+    private final int historyMaxTokens;
+    private final int historyMessageMaxTokens;
+    private final int summaryMaxTokens;
+    private final int contextItemMaxTokens;
+
+    // rag-template.txt: [BAĞLAM] %s [duygu] %s [soru] %s
+    private final String[] templateSegments;
+    private final int templateTokens;
+
+    private final DistributionSummary totalSummary;
+    private final DistributionSummary policySummary;
+    private final DistributionSummary historySummary;
+    private final DistributionSummary contextSummary;
+    private final Counter droppedContextCounter;
+
+    public PromptBuilder(
+            MeterRegistry registry,
+            @Value("classpath:prompts/rag-template.txt") Resource ragPromptResource,
+            @Value("${app.openai.chat-model:gpt-4o-mini}") String modelName,
+            @Value("${app.prompt.max-tokens:6000}") int maxTokens,
+            @Value("${app.prompt.history-max-tokens:1200}") int historyMaxTokens,
+            @Value("${app.prompt.history-message-max-tokens:250}") int historyMessageMaxTokens,
+            @Value("${app.prompt.summary-max-tokens:300}") int summaryMaxTokens,
+            @Value("${app.prompt.context-item-max-tokens:1000}") int contextItemMaxTokens
+    ) {
+        this.tokenizer = createTokenizer(modelName);
+        this.maxTokens = maxTokens;
+        this.historyMaxTokens = historyMaxTokens;
+        this.historyMessageMaxTokens = historyMessageMaxTokens;
+        this.summaryMaxTokens = summaryMaxTokens;
+        this.contextItemMaxTokens = contextItemMaxTokens;
+
+        this.templateSegments = compile(read(ragPromptResource), 3);
+        int t = 0;
+        for (String s : templateSegments) t += count(s);
+        this.templateTokens = t;
+
+        this.totalSummary = summary(registry, "total");
+        this.policySummary = summary(registry, "policy");
+        this.historySummary = summary(registry, "history");
+        this.contextSummary = summary(registry, "context");
+        this.droppedContextCounter = Counter.builder("ai.prompt.context.dropped")
+                .description("Token bütçesine sığmadığı için prompt'a alınmayan kaynak sayısı")
+                .register(registry);
+    }
+
+    /** RAG prompt'u: politika + geçmiş (özet + son mesajlar) + şablon(bağlam, duygu, soru). */
+    public BuiltPrompt buildRagPrompt(String policy, String summary, List<ConversationMessage> history,
+                                      List<DocumentMatch> rankedContext, String emotion, String question) {
+        int policyTokens = count(policy);
+        int fixedTokens = policyTokens + templateTokens + count(emotion) + count(question)
+                + count("\n\nKONUŞMA GEÇMİŞİ (bağlam):\n\n");
+
+        String historyBlock = buildHistory(summary, history);
+        int historyTokens = count(historyBlock);
+
+        // bağlam: kalan bütçe, sıralamaya göre; sığmayan en düşük sıralılar düşer
+        int contextBudget = maxTokens - fixedTokens - historyTokens;
+        List<DocumentMatch> used = new ArrayList<>();
+        StringBuilder context = new StringBuilder();
+        int contextTokens = 0;
+
+        for (DocumentMatch m : rankedContext) {
+            String separator = used.isEmpty() ? "" : "\n---\n\n";
+            String block = contextBlock("S" + (used.size() + 1), m);
+            int blockTokens = count(separator) + count(block);
+
+            if (contextTokens + blockTokens > contextBudget) {
+                if (!used.isEmpty()) break;
+                // en az bir kaynak kalsın: ilk kaynağı bütçeye kırp
+                block = clipTokens(block, Math.max(0, contextBudget));
+                blockTokens = count(block);
+            }
+            context.append(separator).append(block);
+            contextTokens += blockTokens;
+            used.add(m);
+        }
+        int dropped = rankedContext.size() - used.size();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(policy).append("\n\n")
+                .append("KONUŞMA GEÇMİŞİ (bağlam):\n")
+                .append(historyBlock.isBlank() ? NO_HISTORY : historyBlock + "\n")
+                .append("\n");
+        render(sb, context.toString(), emotion, question);
+
+        BuiltPrompt built = new BuiltPrompt(sb.toString(), used,
+                fixedTokens + historyTokens + contextTokens, policyTokens, historyTokens, contextTokens, dropped);
+        record(built);
+        return built;
+    }
+
+    /** Konuşma hafızası soruları: yalnızca politika + geçmiş (bağlam yok). */
+    public BuiltPrompt buildMemoryPrompt(String policy, String summary, List<ConversationMessage> history, String question) {
+        String historyBlock = buildHistory(summary, history);
+
+        String text =
+                policy + "\n\n" +
+                        "KONUŞMA GEÇMİŞİ (yalnızca bağlam içindir; burada yazmayanı uydurma):\n" +
+                        (historyBlock.isBlank() ? NO_HISTORY : historyBlock + "\n") +
+                        "\nKullanıcı sorusu:\n" + question + "\n\n" +
+                        "Kurallar:\n" +
+                        "- Yalnızca KONUŞMA GEÇMİŞİ'nde geçenlere dayan.\n" +
+                        "- Geçmişte yoksa açıkça 'Bu konuşmada bunu göremiyorum' de.\n" +
+                        "- Türkçe, kısa ve net yaz.\n";
+
+        int policyTokens = count(policy);
+        int historyTokens = count(historyBlock);
+        BuiltPrompt built = new BuiltPrompt(text, List.of(), count(text), policyTokens, historyTokens, 0, 0);
+        record(built);
+        return built;
+    }
+
+    /**
+     * Kayan özet güncellemesi: önceki özet + özete katılacak eski mesajlar → yeni özet.
+     * Kayıt dışı; metrikler sohbet prompt'larını ölçer.
+     */
+    public String buildSummaryPrompt(String previousSummary, List<ConversationMessage> messages) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Bir kampüs asistanı ile öğrenci arasındaki konuşmanın kayan özetini güncelle.\n\n")
+                .append("MEVCUT ÖZET:\n")
+                .append(previousSummary == null || previousSummary.isBlank() ? "(Özet yok)" : previousSummary.trim())
+                .append("\n\nÖZETE EKLENECEK YENİ MESAJLAR:\n");
+        for (ConversationMessage m : messages) {
+            sb.append(messageLine(m));
+        }
+        sb.append("\nKurallar:\n")
+                .append("- Mevcut özeti ve yeni mesajları tek bir özette birleştir; Türkçe, düz metin.\n")
+                .append("- Öğrencinin sorduğu konuları, verilen somut bilgileri (tarih, ücret, link, ders kodu) ve ")
+                .append("öğrencinin tercihlerini/durumunu koru; selamlaşma ve tekrarları at.\n")
+                .append("- Konuşmada geçmeyen bilgi ekleme.\n")
+                .append("- En fazla ").append(summaryMaxTokens * 3 / 4).append(" kelime.\n")
+                .append("\nSadece güncel özeti yaz:\n");
+        return sb.toString();
+    }
+
+    /** Özet metnini prompt payına (summary-max-tokens) kırpar. */
+    public String clipSummary(String summary) {
+        return (summary == null) ? null : clipTokens(summary.trim(), summaryMaxTokens);
+    }
+
+    public int count(String text) {
+        return (text == null || text.isEmpty()) ? 0 : tokenizer.estimateTokenCountInText(text);
+    }
+
+    // -------------------------
+    // Bölümler
+    // -------------------------
+
+    /**
+     * Önce kayan özet (varsa), ardından en yeni mesajdan geriye doğru history-max-tokens dolana
+     * kadar mesajlar; kronolojik sırada döner.
+     */
+    private String buildHistory(String summary, List<ConversationMessage> history) {
+        String summaryLine = (summary == null || summary.isBlank())
+                ? ""
+                : "Önceki konuşmanın özeti: " + clipSummary(summary) + "\n";
+        if (history == null || history.isEmpty()) return summaryLine;
+
+        List<String> lines = new ArrayList<>();
+        int used = count(summaryLine);
+        for (int i = history.size() - 1; i >= 0; i--) {
+            String line = messageLine(history.get(i));
+
+            int tokens = count(line);
+            if (used + tokens > historyMaxTokens) break;
+            lines.add(0, line);
+            used += tokens;
+        }
+        return summaryLine + String.join("", lines);
+    }
+
+    private String messageLine(ConversationMessage m) {
+        String role = (m.getRole() == ConversationMessageRole.USER) ? "Kullanıcı" : "Asistan";
+        String content = (m.getContent() == null) ? "" : m.getContent().trim();
+        return role + ": " + clipTokens(content, historyMessageMaxTokens) + "\n";
+    }
+
+    private String contextBlock(String sourceId, DocumentMatch m) {
+        String url = "";
+        String title = "";
+        if (m.metadata() != null) {
+            Object u = m.metadata().get("url");
+            url = (u != null) ? u.toString() : "";
+            Object t = m.metadata().get("title");
+            title = (t != null) ? t.toString() : "";
+        }
+
+        String text = (m.text() == null) ? "" : m.text().trim();
+        text = clipTokens(text, contextItemMaxTokens);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("SOURCE_ID: ").append(sourceId).append("\n");
+        if (!title.isBlank()) sb.append("TITLE: ").append(title).append("\n");
+        sb.append("URL: ").append(url).append("\n");
+        sb.append("TEXT:\n").append(text).append("\n");
+        return sb.toString();
+    }
+
+    /** Metni ilk maxTokens token'a kırpar (kırpıldıysa " ..." ekler). */
+    private String clipTokens(String text, int maxTokens) {
+        if (text.isEmpty() || count(text) <= maxTokens) return text;
+        return tokenizer.decode(tokenizer.encode(text, maxTokens)) + " ...";
+    }
+
+    // -------------------------
+    // Şablon
+    // -------------------------
+
+    private void render(StringBuilder sb, String... args) {
+        for (int i = 0; i < templateSegments.length; i++) {
+            sb.append(templateSegments[i]);
+            if (i < args.length) sb.append(args[i]);
+        }
+    }
+
+    /** Şablonu %s yerlerinden parçalar; yer sayısı beklenenden farklıysa açılışta hata verir. */
+    private static String[] compile(String template, int expectedSlots) {
+        List<String> segments = new ArrayList<>();
+        int from = 0;
+        int idx;
+        while ((idx = template.indexOf("%s", from)) >= 0) {
+            segments.add(template.substring(from, idx));
+            from = idx + 2;
+        }
+        segments.add(template.substring(from));
+
+        if (segments.size() != expectedSlots + 1) {
+            throw new IllegalStateException("Prompt şablonunda " + expectedSlots + " adet %s bekleniyordu, "
+                    + (segments.size() - 1) + " bulundu");
+        }
+        return segments.toArray(String[]::new);
+    }
+
+    private static String read(Resource resource) {
+        try (InputStreamReader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return FileCopyUtils.copyToString(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Prompt dosyası okunamadı: " + resource, e);
+        }
+    }
+
+    private static OpenAiTokenizer createTokenizer(String modelName) {
+        try {
+            return new OpenAiTokenizer(modelName);
+        } catch (Exception e) {
+            // tokenizer'ı bilinmeyen model adı: cl100k_base yakın bir tahmin verir
+            log.warn("'{}' için tokenizer bulunamadı, varsayılan kullanılacak", modelName);
+            return new OpenAiTokenizer();
+        }
+    }
+
+    // -------------------------
+    // Metrikler
+    // -------------------------
+
+    private static DistributionSummary summary(MeterRegistry registry, String section) {
+        return DistributionSummary.builder("ai.prompt.tokens")
+                .description("Gönderilen prompt'un bölüm bazında token sayısı")
+                .tag("section", section)
+                .register(registry);
+    }
+
+    private void record(BuiltPrompt p) {
+        totalSummary.record(p.totalTokens());
+        policySummary.record(p.policyTokens());
+        historySummary.record(p.historyTokens());
+        contextSummary.record(p.contextTokens());
+        if (p.droppedContext() > 0) droppedContextCounter.increment(p.droppedContext());
+
+        log.debug("Prompt tokenları: toplam={} politika={} geçmiş={} bağlam={} düşen kaynak={}",
+                p.totalTokens(), p.policyTokens(), p.historyTokens(), p.contextTokens(), p.droppedContext());
+        if (p.totalTokens() > maxTokens) {
+            log.warn("Prompt token bütçesini aşıyor: {} > {}", p.totalTokens(), maxTokens);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.campus.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Anlamsal cevap önbelleği: aynı sorunun farklı ifadeleri (paraphrase) için LLM'i tekrar çağırmaz.
+ *
+ * Anahtar üç parçalıdır:
+ *  1) kullanılan kaynak doküman id'leri (sıralı küme)
+ *  2) etkin tercih profili (uzunluk, format, ton, kaynak, duygu)
+ *  3) sorgu embedding'i: aynı kova içinde kosinüs mesafesi max-distance altındaki en yakın kayıt
+ *
+ * Yeni/değişen duyurular indekslenince (IndexingOutboxWorker) tamamen temizlenir (invalidateAll).
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    private record Entry(float[] embedding, String answer) {}
+
+    private final Cache<String, List<Entry>> buckets;
+    private final double maxDistance;
+    private final int maxPerBucket;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public SemanticAnswerCache(
+            MeterRegistry registry,
+            @Value("${app.answer-cache.max-distance:0.08}") double maxDistance,
+            @Value("${app.answer-cache.max-buckets:5000}") long maxBuckets,
+            @Value("${app.answer-cache.max-per-bucket:16}") int maxPerBucket,
+            @Value("${app.answer-cache.ttl:12h}") Duration ttl
+    ) {
+        this.maxDistance = maxDistance;
+        this.maxPerBucket = maxPerBucket;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("answer.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("answer.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("answer.cache.hit.ratio", this, c -> c.hitRatio()).register(registry);
+        Gauge.builder("answer.cache.buckets", buckets, c -> c.estimatedSize()).register(registry);
+    }
+
+    public Optional<String> lookup(float[] queryEmbedding, List<String> sourceIds, String profileKey) {
+        if (queryEmbedding == null) return Optional.empty();
+
+        List<Entry> entries = buckets.getIfPresent(bucketKey(sourceIds, profileKey));
+        if (entries != null) {
+            float[] q = normalize(queryEmbedding);
+            synchronized (entries) {
+                Entry best = null;
+                double bestDistance = Double.MAX_VALUE;
+                for (Entry e : entries) {
+                    double d = 1.0 - dot(q, e.embedding());
+                    if (d < bestDistance) {
+                        bestDistance = d;
+                        best = e;
+                    }
+                }
+                if (best != null && bestDistance <= maxDistance) {
+                    hits.increment();
+                    return Optional.of(best.answer());
+                }
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(float[] queryEmbedding, List<String> sourceIds, String profileKey, String answer) {
+        if (queryEmbedding == null || answer == null || answer.isBlank()) return;
+
+        List<Entry> entries = buckets.get(bucketKey(sourceIds, profileKey), k -> new ArrayList<>());
+        synchronized (entries) {
+            if (entries.size() >= maxPerBucket) entries.remove(0); // en eskisini at
+            entries.add(new Entry(normalize(queryEmbedding), answer));
+        }
+    }
+
+    /** ETL yeni içerik yazdığında çağrılır; transaction içindeyse commit sonrası uygulanır. */
+    public void invalidateAll() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        } else {
+            clear();
+        }
+    }
+
+    private void clear() {
+        buckets.invalidateAll();
+        log.info("Anlamsal cevap önbelleği temizlendi (yeni içerik)");
+    }
+
+    private double hitRatio() {
+        double h = hits.count();
+        double total = h + misses.count();
+        return total == 0 ? 0.0 : h / total;
+    }
+
+    private static String bucketKey(List<String> sourceIds, String profileKey) {
+        return String.join(",", new TreeSet<>(sourceIds)) + "|" + profileKey;
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        float[] out = new float[v.length];
+        if (norm == 0) return out;
+        for (int i = 0; i < v.length; i++) out[i] = (float) (v[i] / norm);
+        return out;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) return 0.0;
+        double d = 0;
+        for (int i = 0; i < a.length; i++) d += a[i] * b[i];
+        return d;
+    }
+}
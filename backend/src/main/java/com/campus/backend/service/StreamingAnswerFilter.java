@@ -0,0 +1,98 @@
+package com.campus.backend.service;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Akış halindeki model çıktısından iç satırları (KULLANILAN_KAYNAK, Kaynak/Kaynaklar)
+ * satır satır ayıklar; AiService.stripInternalAndSources ile aynı kurallar.
+ *
+ * Bir satır iç satır olabilecek bir önekle başladığı sürece tutulur; öneki kesin
+ * olarak ayrıştığı anda (ör. "Kayıt...") bekletmeden akıtılır. Böylece ilk token
+ * gecikmesi yalnızca "Kaynak" ile başlayan satırlarda artar.
+ */
+class StreamingAnswerFilter {
+
+    private static final Pattern INTERNAL_LINE =
+            Pattern.compile("(?i)^\\s*KULLANILAN_KAYNAK\\s*:\\s*(S\\d+|YOK)\\s*$");
+    private static final Pattern SOURCE_LINE =
+            Pattern.compile("(?i)^\\s*Kaynak(lar)?\\s*:.*$");
+
+    private static final String[] INTERNAL_PREFIXES = {"kullanilan_kaynak", "kaynaklar", "kaynak"};
+
+    private final Consumer<String> out;
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder pending = new StringBuilder();
+    private boolean lineReleased;
+
+    StreamingAnswerFilter(Consumer<String> out) {
+        this.out = out;
+    }
+
+    synchronized void accept(String token) {
+        if (token == null || token.isEmpty()) return;
+
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '\n') {
+                endLine();
+            } else if (lineReleased) {
+                pending.append(c);
+            } else {
+                line.append(c);
+            }
+        }
+
+        if (!lineReleased && line.length() > 0 && !mayBeInternal(line)) {
+            lineReleased = true;
+            pending.append(line);
+            line.setLength(0);
+        }
+        flush();
+    }
+
+    synchronized void complete() {
+        if (!lineReleased && !isInternal(line)) {
+            pending.append(line);
+        }
+        line.setLength(0);
+        flush();
+    }
+
+    private void endLine() {
+        if (lineReleased) {
+            pending.append('\n');
+        } else if (!isInternal(line)) {
+            pending.append(line).append('\n');
+        }
+        line.setLength(0);
+        lineReleased = false;
+    }
+
+    private void flush() {
+        if (pending.length() == 0) return;
+        out.accept(pending.toString());
+        pending.setLength(0);
+    }
+
+    private static boolean isInternal(CharSequence l) {
+        return INTERNAL_LINE.matcher(l).matches() || SOURCE_LINE.matcher(l).matches();
+    }
+
+    /** Satırın şu ana kadarki kısmı hâlâ bir iç satırın başı olabilir mi? */
+    private static boolean mayBeInternal(CharSequence partial) {
+        String t = partial.toString().stripLeading().toLowerCase(Locale.ROOT);
+        if (t.isEmpty()) return true;
+
+        for (String kw : INTERNAL_PREFIXES) {
+            if (t.length() <= kw.length()) {
+                if (kw.startsWith(t)) return true;
+            } else if (t.startsWith(kw)) {
+                String rest = t.substring(kw.length()).stripLeading();
+                if (rest.isEmpty() || rest.startsWith(":")) return true;
+            }
+        }
+        return false;
+    }
+}
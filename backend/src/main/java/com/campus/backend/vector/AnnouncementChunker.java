@@ -0,0 +1,132 @@
+package com.campus.backend.vector;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Uzun duyuru metnini cümle sınırlarına saygılı, örtüşen ve token sınırlı parçalara böler.
+ *
+ * - Cümleler BreakIterator (tr) ile bulunur; "01.09.2025" gibi tarihler cümle bölmez.
+ * - Bir parça max-tokens'ı aşmayacak kadar ardışık cümleden oluşur.
+ * - Sonraki parça, öncekinin son overlap-tokens kadarlık cümleleriyle başlar (bağlam kopmasın).
+ * - Tek başına max-tokens'ı aşan cümle boşluklardan sert bölünür.
+ *
+ * Offset'ler içerik metni üzerindeki karakter konumlarıdır; arama tarafında aynı duyurunun
+ * komşu parçaları bu offset'lerle birleştirilir.
+ */
+@Component
+public class AnnouncementChunker {
+
+    private static final Locale LOCALE_TR = Locale.forLanguageTag("tr-TR");
+
+    /** content.substring(start, end) == text */
+    public record Chunk(int index, int start, int end, String text) {}
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public AnnouncementChunker(
+            @Value("${app.chunking.max-tokens:350}") int maxTokens,
+            @Value("${app.chunking.overlap-tokens:60}") int overlapTokens
+    ) {
+        this.maxTokens = Math.max(16, maxTokens);
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+    }
+
+    public List<Chunk> chunk(String content) {
+        List<Chunk> out = new ArrayList<>();
+        if (content == null || content.isBlank()) return out;
+
+        if (estimateTokens(content) <= maxTokens) {
+            int[] span = trim(content, 0, content.length());
+            out.add(new Chunk(0, span[0], span[1], content.substring(span[0], span[1])));
+            return out;
+        }
+
+        List<int[]> sentences = sentences(content);
+        int first = 0;
+        while (first < sentences.size()) {
+            int last = first;
+            int tokens = tokens(sentences.get(first));
+            while (last + 1 < sentences.size() && tokens + tokens(sentences.get(last + 1)) <= maxTokens) {
+                last++;
+                tokens += tokens(sentences.get(last));
+            }
+
+            int start = sentences.get(first)[0];
+            int end = sentences.get(last)[1];
+            out.add(new Chunk(out.size(), start, end, content.substring(start, end)));
+
+            if (last + 1 >= sentences.size()) break;
+
+            // örtüşme: son cümlelerden overlap-tokens kadarını bir sonraki parçaya taşı,
+            // ama her adımda en az bir cümle ilerle
+            int next = last + 1;
+            int carried = 0;
+            while (next - 1 > first && carried + tokens(sentences.get(next - 1)) <= overlapTokens) {
+                next--;
+                carried += tokens(sentences.get(next));
+            }
+            first = next;
+        }
+        return out;
+    }
+
+    /** Cümle aralıkları (kırpılmış); max-tokens'tan uzun cümleler kelime sınırından bölünür. */
+    private List<int[]> sentences(String content) {
+        List<int[]> out = new ArrayList<>();
+        BreakIterator it = BreakIterator.getSentenceInstance(LOCALE_TR);
+        it.setText(content);
+
+        int start = it.first();
+        for (int end = it.next(); end != BreakIterator.DONE; start = end, end = it.next()) {
+            int[] span = trim(content, start, end);
+            if (span[0] >= span[1]) continue;
+
+            if (estimateTokens(span[1] - span[0]) <= maxTokens) {
+                out.add(span);
+            } else {
+                splitLong(content, span[0], span[1], out);
+            }
+        }
+        return out;
+    }
+
+    private void splitLong(String content, int start, int end, List<int[]> out) {
+        int maxChars = maxTokens * 3;
+        while (start < end) {
+            int cut = Math.min(end, start + maxChars);
+            if (cut < end) {
+                int ws = content.lastIndexOf(' ', cut);
+                if (ws > start + maxChars / 2) cut = ws;
+            }
+            int[] span = trim(content, start, cut);
+            if (span[0] < span[1]) out.add(span);
+            start = cut;
+        }
+    }
+
+    private static int[] trim(String s, int start, int end) {
+        while (start < end && Character.isWhitespace(s.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) end--;
+        return new int[]{start, end};
+    }
+
+    private static int tokens(int[] span) {
+        return estimateTokens(span[1] - span[0]);
+    }
+
+    // EmbeddingService ile aynı tahmin: Türkçe metinde ~3 karakter ≈ 1 token
+    private static int estimateTokens(String text) {
+        return estimateTokens(text.length());
+    }
+
+    private static int estimateTokens(int chars) {
+        return Math.max(1, chars / 3);
+    }
+}
@@ -0,0 +1,295 @@
+package com.campus.backend.vector;
+
+import com.campus.backend.entity.Announcement;
+import com.campus.backend.repository.AnnouncementRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Duyuru başlık + içerik üzerinde bellek içi BM25 ters indeksi.
+ *
+ * Vektör aramasının kaçırdığı birebir eşleşmeler (ders kodu, form adı, tarih) için
+ * EmbeddingService bu indeksin sonuçlarını vektör sonuçlarıyla RRF ile birleştirir.
+ *
+ * Postings primitive int dizileridir (doc id + tf); açılışta DB'den bir kez kurulur,
+ * sonra ETL yeni kayıt yazdıkça (commit sonrası) artımlı güncellenir. Güncellenen duyurunun
+ * eski doc'u silindi işaretlenir ve terimlerinin df'i hemen düşülür (idf yalnızca canlı doc'ları
+ * sayar); silinenler toplam doc'ların COMPACT_RATIO'sunu geçince doc id'ler yeniden numaralanıp
+ * postings'ten atılır (bellek güncellemelerle büyümez).
+ */
+@Slf4j
+@Component
+public class Bm25Index {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 2; // başlık tokenları iki kez sayılır
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int COMPACT_MIN_DOCS = 64;
+
+    /** Lexical sonuç: duyuru id, BM25 skoru, sorgu terimlerinin kapsama oranı (0..1). */
+    public record Hit(long announcementId, double score, double coverage, String text, Map<String, Object> metadata) {}
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] tfs = new int[4];
+        int size;
+        int live; // silinmemiş doc sayısı = df
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = tf;
+            size++;
+            live++;
+        }
+    }
+
+    private final AnnouncementRepository annRepo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> annToDoc = new HashMap<>();
+    private long[] annIds = new long[64];
+    private int[] docLen = new int[64];
+    private String[] texts = new String[64];
+    private Postings[][] docTerms = new Postings[64][]; // doc'un terimleri: silinince df'leri düşülür
+    private List<Map<String, Object>> metas = new ArrayList<>(); // doc id sırasıyla
+    private final BitSet removed = new BitSet();
+    private int docCount;      // eklenen toplam doc (silinenler dahil)
+    private int liveDocs;
+    private long totalLen;
+
+    public Bm25Index(AnnouncementRepository annRepo) {
+        this.annRepo = annRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            addAllNow(annRepo.findAll());
+            log.info("BM25 indeks kuruldu: {} duyuru, {} terim, {} ms",
+                    liveDocs, postings.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // indeks boş kalırsa arama yalnızca vektörle devam eder
+            log.error("BM25 indeks kurulamadı", e);
+        }
+    }
+
+    /**
+     * Yeni/güncellenen duyuruları ekler. Aktif bir transaction varsa commit sonrasına ertelenir
+     * (rollback olan kayıtlar indekse girmesin).
+     */
+    public void addAll(List<Announcement> announcements) {
+        if (announcements == null || announcements.isEmpty()) return;
+        List<Announcement> copy = List.copyOf(announcements);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addAllNow(copy);
+                }
+            });
+        } else {
+            addAllNow(copy);
+        }
+    }
+
+    private void addAllNow(List<Announcement> announcements) {
+        lock.writeLock().lock();
+        try {
+            for (Announcement a : announcements) {
+                if (a.getId() != null) addOne(a);
+            }
+            if (docCount >= COMPACT_MIN_DOCS && removed.cardinality() > docCount * COMPACT_RATIO) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addOne(Announcement a) {
+        Integer old = annToDoc.get(a.getId());
+        if (old != null) {
+            // güncelleme: eski doc'u mantıksal olarak sil
+            removed.set(old);
+            totalLen -= docLen[old];
+            liveDocs--;
+            for (Postings p : docTerms[old]) p.live--;
+            docTerms[old] = null;
+        }
+
+        Map<String, Integer> tf = new HashMap<>();
+        int len = 0;
+        for (String t : TurkishTokenizer.tokenize(a.getTitle())) {
+            tf.merge(t, TITLE_WEIGHT, Integer::sum);
+            len += TITLE_WEIGHT;
+        }
+        for (String t : TurkishTokenizer.tokenize(a.getContent())) {
+            tf.merge(t, 1, Integer::sum);
+            len++;
+        }
+
+        int doc = docCount++;
+        ensureCapacity(docCount);
+        annIds[doc] = a.getId();
+        docLen[doc] = len;
+        texts[doc] = a.getContent(); // başlık metadata'da; vektör parçalarıyla aynı biçim
+        metas.add(EmbeddingService.buildMetadata(a));
+        Postings[] terms = new Postings[tf.size()];
+        int t = 0;
+        for (var e : tf.entrySet()) {
+            Postings p = postings.computeIfAbsent(e.getKey(), k -> new Postings());
+            p.add(doc, e.getValue());
+            terms[t++] = p;
+        }
+        docTerms[doc] = terms;
+
+        annToDoc.put(a.getId(), doc);
+        totalLen += len;
+        liveDocs++;
+    }
+
+    /** Silinen doc'ları atar: canlı doc'lar sırası korunarak yeniden numaralanır (yazma kilidi altında). */
+    private void compact() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = removed.get(doc) ? -1 : next++;
+        }
+
+        long[] newAnnIds = new long[Math.max(64, next)];
+        int[] newDocLen = new int[newAnnIds.length];
+        String[] newTexts = new String[newAnnIds.length];
+        Postings[][] newDocTerms = new Postings[newAnnIds.length][];
+        List<Map<String, Object>> newMetas = new ArrayList<>(next);
+        for (int doc = 0; doc < docCount; doc++) {
+            int to = remap[doc];
+            if (to < 0) continue;
+            newAnnIds[to] = annIds[doc];
+            newDocLen[to] = docLen[doc];
+            newTexts[to] = texts[doc];
+            newDocTerms[to] = docTerms[doc];
+            newMetas.add(metas.get(doc));
+            annToDoc.put(annIds[doc], to);
+        }
+
+        Iterator<Postings> it = postings.values().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next();
+            int size = 0;
+            for (int i = 0; i < p.size; i++) {
+                int to = remap[p.docs[i]];
+                if (to < 0) continue;
+                p.docs[size] = to; // remap artan: liste sıralı kalır
+                p.tfs[size] = p.tfs[i];
+                size++;
+            }
+            if (size == 0) {
+                it.remove();
+            } else {
+                p.size = size;
+            }
+        }
+
+        annIds = newAnnIds;
+        docLen = newDocLen;
+        texts = newTexts;
+        docTerms = newDocTerms;
+        metas = newMetas;
+        removed.clear();
+        docCount = next;
+    }
+
+    public List<Hit> search(String query, int topK) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TurkishTokenizer.tokenize(query)));
+        if (terms.isEmpty() || topK <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) return List.of();
+
+            float[] scores = new float[docCount];
+            int[] matched = new int[docCount];
+            float avgLen = (float) totalLen / liveDocs;
+
+            for (String term : terms) {
+                Postings p = postings.get(term);
+                if (p == null) continue;
+
+                int df = p.live;
+                if (df == 0) continue; // yalnızca silinmiş doc'larda geçiyor
+                float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int doc = p.docs[i];
+                    if (removed.get(doc)) continue;
+                    int tf = p.tfs[i];
+                    float norm = tf + K1 * (1 - B + B * docLen[doc] / avgLen);
+                    scores[doc] += idf * (tf * (K1 + 1)) / norm;
+                    matched[doc]++;
+                }
+            }
+
+            // top-k: küçük min-heap
+            PriorityQueue<Integer> heap = new PriorityQueue<>(topK, Comparator.comparingDouble(d -> scores[d]));
+            for (int doc = 0; doc < docCount; doc++) {
+                if (scores[doc] <= 0) continue;
+                if (heap.size() < topK) {
+                    heap.add(doc);
+                } else if (scores[doc] > scores[heap.peek()]) {
+                    heap.poll();
+                    heap.add(doc);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int doc = heap.poll();
+                hits.add(new Hit(annIds[doc], scores[doc], (double) matched[doc] / terms.size(), texts[doc], metas.get(doc)));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Postings'teki doc sayısı (silinip henüz atılmamışlar dahil). */
+    int docCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= annIds.length) return;
+        int cap = Math.max(needed, annIds.length * 2);
+        annIds = Arrays.copyOf(annIds, cap);
+        docLen = Arrays.copyOf(docLen, cap);
+        texts = Arrays.copyOf(texts, cap);
+        docTerms = Arrays.copyOf(docTerms, cap);
+    }
+}
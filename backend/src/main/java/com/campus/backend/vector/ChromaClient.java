@@ -1,23 +1,161 @@
 package com.campus.backend.vector;
 
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 @Component
-public class ChromaClient {
+@ConditionalOnProperty(name = "app.vector.store", havingValue = "chroma", matchIfMissing = true)
+public class ChromaClient implements VectorStore {
 
     @Value("${CHROMA_URL}")
     String base;
 
+    // ---- Bağlantı havuzu ayarları (Reactor Netty) ----
+    @Value("${app.chroma.pool.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${app.chroma.pool.pending-acquire-max:500}")
+    private int pendingAcquireMax;
+
+    @Value("${app.chroma.pool.pending-acquire-timeout:5s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${app.chroma.pool.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${app.chroma.pool.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${app.chroma.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${app.chroma.read-timeout:10s}")
+    private Duration readTimeout;
+
     private volatile String collectionId;    // aktif koleksiyon ID
     private volatile String collectionName;  // bilgilendirme
 
-    private WebClient wc() { return WebClient.create(base); }
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    /**
+     * Tek, havuzlu WebClient. Havuz metrikleri Micrometer'a açılır:
+     *  - reactor.netty.connection.provider.active.connections{name=chroma}
+     *  - reactor.netty.connection.provider.pending.connections{name=chroma}
+     *  - reactor.netty.connection.provider.pending.connections.time{name=chroma} (acquire süresi)
+     */
+    @PostConstruct
+    void initClient() {
+        this.connectionProvider = ConnectionProvider.builder("chroma")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                // istek başına cevap süresi; bağlantıya kalıcı Read/WriteTimeoutHandler eklenmez
+                // (havuzda boşta bekleyen bağlantıları max-idle-time dolmadan kapatırdı)
+                .responseTimeout(readTimeout);
+
+        this.webClient = WebClient.builder()
+                .baseUrl(base)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // query cevapları (documents + metadatas) varsayılan 256KB'ı aşabilir
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (connectionProvider != null) {
+            connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+        }
+    }
+
+    private WebClient wc() { return webClient; }
+
+    // ------------------- VectorStore -------------------
+
+    @Override
+    public void ensureCollection(String name, int dimensionality) {
+        ensureWithDim(name, dimensionality);
+    }
+
+    @Override
+    public void upsertAll(List<String> ids, List<float[]> vectors,
+                          List<Map<String, Object>> metas, List<String> docs) {
+        upsertBatch(ids, vectors.stream().map(ChromaClient::toList).toList(), metas, docs);
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return;
+
+        collectionIdAsync().flatMap(cid -> wc().post()
+                        .uri("/api/v1/collections/{id}/delete", cid)
+                        .bodyValue(Map.of("ids", ids))
+                        .retrieve()
+                        .onStatus(s -> s.is4xxClientError() || s.is5xxServerError(),
+                                resp -> resp.bodyToMono(String.class).map(msg ->
+                                        new RuntimeException("Chroma delete HTTP " + resp.statusCode() + ": " + msg)))
+                        .toBodilessEntity())
+                .block();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<DocumentMatch> search(float[] vector, int topK) {
+        Map<?, ?> queryResult = query(toList(vector), topK);
+
+        List<DocumentMatch> matches = new ArrayList<>();
+        if (queryResult == null) return matches;
+
+        List<List<String>> docLists = (List<List<String>>) queryResult.get("documents");
+        List<List<Map<String, Object>>> metaLists = (List<List<Map<String, Object>>>) queryResult.get("metadatas");
+        List<List<Double>> distLists = (List<List<Double>>) queryResult.get("distances");
+
+        if (docLists == null || docLists.isEmpty()) {
+            return matches;
+        }
+
+        List<String> docs = docLists.get(0);
+        List<Map<String, Object>> metas = metaLists.get(0);
+        List<Double> dists = distLists.get(0);
+
+        for (int i = 0; i < docs.size(); i++) {
+            matches.add(new DocumentMatch(
+                    docs.get(i),
+                    metas.get(i),
+                    dists.get(i)
+            ));
+        }
+
+        // ✅ ZORUNLU: Mesafeye göre sırala (küçük mesafe = daha iyi eşleşme)
+        matches.sort((a, b) -> Double.compare(a.distance(), b.distance()));
+        return matches;
+    }
 
     // ------------------- PUBLIC API -------------------
 
@@ -81,26 +219,45 @@ public class ChromaClient {
      */
     public void upsert(String /*ignored*/ collection, String id,
                        List<Float> embedding, Map<String, Object> meta, String doc) {
+        upsertBatch(List.of(id), List.of(embedding), List.of(meta), List.of(doc));
+    }
+
+    /**
+     * Çoklu upsert: tek HTTP isteğinde birden fazla doküman gönderir.
+     * Listeler aynı uzunlukta ve aynı sırada olmalı.
+     */
+    public void upsertBatch(List<String> ids, List<List<Float>> embeddings,
+                            List<Map<String, Object>> metas, List<String> docs) {
+        upsertAsync(ids, embeddings, metas, docs).block();
+    }
 
-        ensureCollectionIdLazily(); // ID yoksa burada elde etmeye çalış
+    /** upsertBatch'in bloklamayan hali. */
+    public Mono<Map<?, ?>> upsertAsync(List<String> ids, List<List<Float>> embeddings,
+                                       List<Map<String, Object>> metas, List<String> docs) {
+        if (ids.isEmpty()) return Mono.empty();
+        if (embeddings.size() != ids.size() || metas.size() != ids.size() || docs.size() != ids.size()) {
+            return Mono.error(new IllegalArgumentException("Chroma upsertBatch: liste boyutları uyuşmuyor"));
+        }
 
         Map<String, Object> body = Map.of(
-                "ids", List.of(id),
-                "embeddings", List.of(embedding),
-                "metadatas", List.of(meta),
-                "documents", List.of(doc)
+                "ids", ids,
+                "embeddings", embeddings,
+                "metadatas", metas,
+                "documents", docs
         );
 
-        wc().post().uri("/api/v1/collections/{id}/upsert", this.collectionId)
+        return collectionIdAsync().flatMap(cid -> wc().post()
+                .uri("/api/v1/collections/{id}/upsert", cid)
                 .bodyValue(body)
                 .retrieve()
                 .onStatus(s -> s.is4xxClientError() || s.is5xxServerError(),
                         resp -> resp.bodyToMono(String.class).map(msg ->
                                 new RuntimeException("Chroma upsert HTTP " + resp.statusCode() + ": " + msg)))
                 .bodyToMono(Map.class)
-                .doOnNext(res -> System.out.println("Chroma upsert OK: " + res))
-                .block();
+                .<Map<?, ?>>map(m -> m)
+                .doOnNext(res -> System.out.println("Chroma upsert OK: " + ids.size() + " doküman")));
     }
+
     /**
      * Vektörel arama yapar.
      * @param queryEmbedding Arama yapılacak embedding
@@ -108,8 +265,11 @@ public class ChromaClient {
      * @return Chroma'dan dönen ham Map cevabı
      */
     public Map<?, ?> query(List<Float> queryEmbedding, int nResults) {
-        ensureCollectionIdLazily(); // ID'nin varlığından emin ol
+        return queryAsync(queryEmbedding, nResults).block();
+    }
 
+    /** query'nin bloklamayan hali; servlet thread'ini bekletmek istemeyen çağıranlar için. */
+    public Mono<Map<?, ?>> queryAsync(List<Float> queryEmbedding, int nResults) {
         Map<String, Object> body = Map.of(
                 // Chroma, sorgu listesi bekler, biz tek sorgu atıyoruz
                 "query_embeddings", List.of(queryEmbedding),
@@ -118,18 +278,35 @@ public class ChromaClient {
                 "include", List.of("metadatas", "documents", "distances")
         );
 
-        return wc().post()
-                .uri("/api/v1/collections/{id}/query", this.collectionId)
+        return collectionIdAsync().flatMap(cid -> wc().post()
+                .uri("/api/v1/collections/{id}/query", cid)
                 .bodyValue(body)
                 .retrieve()
                 .onStatus(s -> s.is4xxClientError() || s.is5xxServerError(),
                         resp -> resp.bodyToMono(String.class).map(msg ->
                                 new RuntimeException("Chroma query HTTP " + resp.statusCode() + ": " + msg)))
                 .bodyToMono(Map.class)
-                .block();
+                .<Map<?, ?>>map(m -> m));
+    }
+
+    /** Koleksiyon ID biliniyorsa hemen döner; yoksa lazy çözümlemeyi bloklayabilen bir scheduler'da yapar. */
+    private Mono<String> collectionIdAsync() {
+        String cid = this.collectionId;
+        if (cid != null) return Mono.just(cid);
+        return Mono.fromCallable(() -> {
+                    ensureCollectionIdLazily();
+                    return this.collectionId;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
     }
     // ------------------- INTERNAL HELPERS -------------------
 
+    private static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float v : vector) list.add(v);
+        return list;
+    }
+
     /** ensure POST cevabından ID’yi esnek şekilde çıkar. */
     @SuppressWarnings("unchecked")
     private String extractIdFromEnsureResponse(Map<?,?> resp) {
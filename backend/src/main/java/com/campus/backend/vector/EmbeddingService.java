@@ -2,45 +2,279 @@ package com.campus.backend.vector;
 
 import com.campus.backend.entity.Announcement;
 import com.campus.backend.entity.EmbeddingsMap;
+import com.campus.backend.repository.AnnouncementRepository;
 import com.campus.backend.repository.EmbeddingsMapRepository;
+import com.campus.backend.repository.IndexingOutboxRepository;
 import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.output.Response;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import jakarta.annotation.PostConstruct;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmbeddingService {
 
-    private final ChromaClient chroma;
+    private final VectorStore vectorStore;
     private final EmbeddingsMapRepository mapRepo;
     private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryCache;
+    private final Bm25Index bm25Index;
+    private final AnnouncementChunker chunker;
+    private final AnnouncementRepository annRepo;
+    private final IndexingOutboxRepository outbox;
 
     @PostConstruct
     void init(){
-        chroma.ensure("campus_kg");
+        vectorStore.ensureCollection("campus_kg", 1536);
     }
 
-    @Transactional
+    @Value("${app.embedding.batch-max-tokens:100000}")
+    private int batchMaxTokens;   // tek embedAll isteğindeki tahmini toplam token
+
+    @Value("${app.embedding.batch-max-items:256}")
+    private int batchMaxItems;    // tek istekteki en fazla doküman
+
+    @Value("${app.embedding.max-input-tokens:8000}")
+    private int maxInputTokens;   // model tek girdi limiti (text-embedding-3-small: 8191)
+
+    @Value("${app.chunking.reindex-legacy:true}")
+    private boolean reindexLegacy; // açılışta tek vektörlü eski kayıtları parçalı indeksleme için kuyruğa al
+
+    @Value("${app.retrieval.candidate-multiplier:3}")
+    private int candidateMultiplier; // vektör aramasında topK * n parça çekilir, duyuru bazında birleştirilir
+
+    @Value("${app.retrieval.hybrid:true}")
+    private boolean hybrid;       // false = sadece vektör araması
+
+    @Value("${app.retrieval.rrf-k:60}")
+    private int rrfK;             // reciprocal rank fusion sabiti
+
+    @Value("${app.retrieval.lexical-weight:0.4}")
+    private double lexicalWeight; // tüm sorgu terimlerini içeren lexical eşleşme mesafesi = 1 - weight
+
     public void indexAnnouncement(Announcement a){
-        String vid = "ann_" + a.getId();
-        if (mapRepo.existsByVectorId(vid) || mapRepo.existsByKindAndRecordId("announcement", a.getId())) {
-            return;
+        indexAnnouncements(List.of(a));
+    }
+
+    /**
+     * Toplu indeksleme: zaten indeksli olanları tek sorguyla eler, kalanları parçalara
+     * (AnnouncementChunker) böler ve token limitine göre paketleyip embedAll + çoklu upsert ile yazar.
+     * Her parça ayrı vektördür (ann_123#0, ann_123#1, ...); metadata'da parent_id + offset taşır.
+     * EmbeddingsMap satırları paket başına tek saveAll ile kaydedilir.
+     *
+     * Transaction açmaz: okuma ve saveAll kendi kısa transaction'larında çalışır, embed/upsert
+     * çağrıları sırasında bağlantı tutulmaz (IndexingOutboxWorker). Yarıda kalırsa tekrar çağrılabilir.
+     */
+    public int indexAnnouncements(List<Announcement> announcements) {
+        if (announcements == null || announcements.isEmpty()) return 0;
+
+        Set<Long> alreadyIndexed = new HashSet<>(mapRepo.findIndexedRecordIds(
+                "announcement",
+                announcements.stream().map(Announcement::getId).toList()
+        ));
+
+        List<Announcement> pending = announcements.stream()
+                .filter(a -> a.getId() != null && !alreadyIndexed.contains(a.getId()))
+                .toList();
+
+        return indexChunked(pending, Map.of());
+    }
+
+    /**
+     * İçeriği değişmiş duyuruları yeniden indeksler: parçalar aynı id'lerle (ann_123#n) üzerine
+     * yazılır, yeni metin daha az parçaya bölündüyse artan eski parçalar silinir.
+     * EmbeddingsMap satırı güncellenir (yoksa oluşturulur). indexAnnouncements gibi transaction açmaz.
+     */
+    public int reindexAnnouncements(List<Announcement> announcements) {
+        if (announcements == null || announcements.isEmpty()) return 0;
+
+        Map<Long, EmbeddingsMap> rows = mapRepo.findByKindAndRecordIdIn(
+                        "announcement", announcements.stream().map(Announcement::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(EmbeddingsMap::getRecordId, Function.identity()));
+
+        // indexChunked satırların chunkCount'unu günceller; eski değerler önceden alınır
+        Map<Long, Integer> oldCounts = new HashMap<>();
+        rows.forEach((id, row) -> oldCounts.put(id, row.getChunkCount()));
+
+        int indexed = indexChunked(announcements, rows);
+
+        List<String> stale = new ArrayList<>();
+        for (Announcement a : announcements) {
+            if (!oldCounts.containsKey(a.getId())) continue;
+            Integer oldCount = oldCounts.get(a.getId());
+            if (oldCount == null) {
+                stale.add(vectorIdPrefix(a)); // eski tek vektörlü kayıt
+                continue;
+            }
+            int newCount = rows.get(a.getId()).getChunkCount();
+            for (int i = newCount; i < oldCount; i++) {
+                stale.add(vectorIdPrefix(a) + "#" + i);
+            }
+        }
+        if (!stale.isEmpty()) vectorStore.delete(stale);
+        return indexed;
+    }
+
+    /**
+     * Parçalı indekslemeden önce tek vektörle (ann_123) yazılmış duyuruları indexing_outbox'a
+     * ekler; embed işini IndexingOutboxWorker arka planda yapar (reindexAnnouncements eski tek
+     * vektörü siler, eşleme satırının chunkCount'unu doldurur). Açılışta yalnızca id'ler okunur.
+     * Kuyruk kalıcı olduğu için yarıda kalan iş sonraki açılışta kaldığı yerden sürer; henüz
+     * işlenmemiş kayıtların tekrar eklenmesi zararsızdır (aynı satır güncellenir).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexLegacyVectors() {
+        if (!reindexLegacy) return;
+
+        int total = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                List<EmbeddingsMap> legacy = mapRepo.findTop500ByKindAndChunkCountIsNullAndIdGreaterThanOrderByIdAsc(
+                        "announcement", afterId);
+                if (legacy.isEmpty()) break;
+                afterId = legacy.get(legacy.size() - 1).getId();
+
+                // duyurusu silinmiş eşleme satırları: worker atlar, burada temizlenir
+                Set<Long> found = new HashSet<>(annRepo.findExistingIds(
+                        legacy.stream().map(EmbeddingsMap::getRecordId).toList()));
+                List<EmbeddingsMap> orphans = legacy.stream().filter(r -> !found.contains(r.getRecordId())).toList();
+                if (!orphans.isEmpty()) {
+                    vectorStore.delete(orphans.stream().map(EmbeddingsMap::getVectorId).toList());
+                    mapRepo.deleteAll(orphans);
+                }
+
+                outbox.enqueue(found);
+                total += found.size();
+            }
+            if (total > 0) log.info("Parçalı yeniden indeksleme için {} eski duyuru kuyruğa alındı", total);
+        } catch (Exception e) {
+            log.error("Eski vektörler kuyruğa alınamadı ({} duyuru eklendi), sonraki açılışta tekrar denenecek", total, e);
+        }
+    }
+
+    /** Tek bir duyurunun parçaları; embedding girdisi başlıkla birlikte, saklanan doküman yalnızca pasaj. */
+    private record ChunkedAnnouncement(Announcement announcement, List<AnnouncementChunker.Chunk> chunks, int tokens) {}
+
+    private int indexChunked(List<Announcement> announcements, Map<Long, EmbeddingsMap> existingRows) {
+        int indexed = 0;
+        List<ChunkedAnnouncement> batch = new ArrayList<>();
+        int batchItems = 0;
+        int batchTokens = 0;
+
+        for (Announcement a : announcements) {
+            ChunkedAnnouncement ca = chunk(a);
+            int items = ca.chunks().size();
+            boolean full = !batch.isEmpty()
+                    && (batchItems + items > batchMaxItems || batchTokens + ca.tokens() > batchMaxTokens);
+            if (full) {
+                indexed += indexBatch(batch, existingRows);
+                batch = new ArrayList<>();
+                batchItems = 0;
+                batchTokens = 0;
+            }
+            batch.add(ca);
+            batchItems += items;
+            batchTokens += ca.tokens();
         }
+        if (!batch.isEmpty()) {
+            indexed += indexBatch(batch, existingRows);
+        }
+        return indexed;
+    }
+
+    private ChunkedAnnouncement chunk(Announcement a) {
+        List<AnnouncementChunker.Chunk> chunks = chunker.chunk(a.getContent());
+        if (chunks.isEmpty()) {
+            chunks = List.of(new AnnouncementChunker.Chunk(0, 0, 0, "")); // içeriksiz duyuru: yalnızca başlık
+        }
+        int tokens = 0;
+        for (var c : chunks) tokens += estimateTokens(embeddingInput(a, c));
+        return new ChunkedAnnouncement(a, chunks, tokens);
+    }
 
-        String doc = a.getTitle() + "\n\n" + a.getContent();
+    private int indexBatch(List<ChunkedAnnouncement> batch, Map<Long, EmbeddingsMap> existingRows) {
+        List<String> ids = new ArrayList<>();
+        List<String> docs = new ArrayList<>();
+        List<Map<String, Object>> metas = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
 
-        Response<Embedding> response = embeddingModel.embed(doc);
-        List<Float> vector = response.content().vectorAsList();
+        for (ChunkedAnnouncement ca : batch) {
+            Announcement a = ca.announcement();
+            Map<String, Object> base = buildMetadata(a);
+            for (AnnouncementChunker.Chunk c : ca.chunks()) {
+                Map<String, Object> meta = new HashMap<>(base);
+                meta.put("parent_id", String.valueOf(a.getId()));
+                meta.put("chunk_index", c.index());
+                meta.put("chunk_count", ca.chunks().size());
+                meta.put("offset", c.start());
+                meta.put("end", c.end());
 
-        // ✅ Metadata: title eklemek yararlı (zorunlu değil ama önerilir)
-        Map<String, Object> metadata = Map.of(
+                ids.add(vectorIdPrefix(a) + "#" + c.index());
+                docs.add(c.text().isEmpty() ? nullToEmpty(a.getTitle()) : c.text());
+                metas.add(meta);
+                segments.add(TextSegment.from(clipForEmbedding(embeddingInput(a, c))));
+            }
+        }
+
+        Response<List<Embedding>> response = embeddingModel.embedAll(segments);
+        List<float[]> vectors = response.content().stream()
+                .map(Embedding::vector)
+                .toList();
+
+        vectorStore.upsertAll(ids, vectors, metas, docs);
+
+        List<EmbeddingsMap> rows = new ArrayList<>(batch.size());
+        for (ChunkedAnnouncement ca : batch) {
+            Announcement a = ca.announcement();
+            var map = existingRows.getOrDefault(a.getId(), new EmbeddingsMap());
+            map.setKind("announcement");
+            map.setRecordId(a.getId());
+            map.setVectorId(vectorIdPrefix(a));
+            map.setChunkCount(ca.chunks().size());
+            rows.add(map);
+        }
+        mapRepo.saveAll(rows);
+
+        return batch.size();
+    }
+
+    private static String vectorIdPrefix(Announcement a) {
+        return "ann_" + a.getId();
+    }
+
+    // Başlık her parçanın embedding'ine girer: "Staj Başvuruları" altındaki tarih paragrafı da "staj" sorgusuna yakın olsun
+    private static String embeddingInput(Announcement a, AnnouncementChunker.Chunk c) {
+        return nullToEmpty(a.getTitle()) + "\n\n" + c.text();
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    // ✅ Metadata: title eklemek yararlı (zorunlu değil ama önerilir)
+    static Map<String, Object> buildMetadata(Announcement a) {
+        return Map.of(
                 "kind", "announcement",
                 "id", String.valueOf(a.getId()),
                 "title", a.getTitle() != null ? a.getTitle() : "",
@@ -48,49 +282,188 @@ public class EmbeddingService {
                 "category", a.getCategory() != null ? a.getCategory() : "",
                 "published_at", String.valueOf(a.getPublishedAt())
         );
+    }
 
-        chroma.upsert("campus_kg", vid, vector, metadata, doc);
+    // Türkçe metinde ~3 karakter ≈ 1 token (temkinli tahmin)
+    private int estimateTokens(String text) {
+        return (text == null) ? 0 : Math.max(1, text.length() / 3);
+    }
+
+    // Tek bir çok uzun parça tüm paketi düşürmesin diye model limitine kırp
+    private String clipForEmbedding(String doc) {
+        int maxChars = maxInputTokens * 3;
+        return (doc.length() <= maxChars) ? doc : doc.substring(0, maxChars);
+    }
+
+    /** Kısa metinlerin (ör. SSS soruları) vektörleri; batch-max-items'lık embedAll istekleriyle, sıra korunur. */
+    public List<float[]> embedTexts(List<String> texts) {
+        List<float[]> out = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += batchMaxItems) {
+            List<TextSegment> segments = texts.subList(from, Math.min(texts.size(), from + batchMaxItems)).stream()
+                    .map(t -> TextSegment.from(clipForEmbedding(nullToEmpty(t))))
+                    .toList();
+            for (Embedding e : embeddingModel.embedAll(segments).content()) out.add(e.vector());
+        }
+        return out;
+    }
 
-        var map = new EmbeddingsMap();
-        map.setKind("announcement");
-        map.setRecordId(a.getId());
-        map.setVectorId(vid);
-        mapRepo.save(map);
+    /** Sorgu vektörü: önce önbellek, yoksa embedding modeli. */
+    public float[] embedQuery(String query) {
+        return queryCache.get(query, q -> embeddingModel.embed(q).content().vector());
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Hibrit arama: vektör sonuçları + BM25 sonuçları reciprocal rank fusion ile birleştirilir.
+     * Sıra RRF skoruna göredir; distance alanı AiService'in RELEVANCE_THRESHOLD kontrolü için
+     * vektör mesafesi ile lexical mesafenin (1 - weight * kapsama) küçüğüdür.
+     *
+     * Vektör tarafı parça döndürür: topK * candidate-multiplier parça çekilir, aynı duyurunun
+     * parçaları tek sonuçta toplanır ve komşu/örtüşen parçalar tek pasaja dikilir.
+     * Böylece prompt'a duyurunun tamamı değil, yalnızca ilgili pasajları girer.
+     */
     public List<DocumentMatch> findRelevantDocuments(String query, int topK) {
+        List<DocumentMatch> chunks = vectorStore.search(embedQuery(query), topK * Math.max(1, candidateMultiplier));
+        List<DocumentMatch> vectorMatches = mergeChunks(chunks, topK);
+        if (!hybrid) return vectorMatches;
+
+        List<Bm25Index.Hit> lexicalMatches = bm25Index.search(query, topK);
+        if (lexicalMatches.isEmpty()) return vectorMatches;
 
-        Response<Embedding> response = embeddingModel.embed(query);
-        List<Float> vector = response.content().vectorAsList();
+        return fuse(query, vectorMatches, lexicalMatches, topK);
+    }
+
+    /**
+     * Parçaları duyuru bazında gruplar (ilk görülme = en iyi mesafe sırası korunur).
+     * Aynı duyurunun ardışık ya da örtüşen parçaları offset'lerle tek pasaja birleştirilir;
+     * aralarında boşluk olan pasajlar " ... " ile ayrılır.
+     */
+    List<DocumentMatch> mergeChunks(List<DocumentMatch> chunks, int topK) {
+        Map<String, List<DocumentMatch>> byParent = new LinkedHashMap<>();
+        for (DocumentMatch m : chunks) {
+            if (m == null) continue;
+            byParent.computeIfAbsent(docKey(m.metadata(), m.text()), k -> new ArrayList<>()).add(m);
+        }
 
-        Map<?, ?> queryResult = chroma.query(vector, topK);
+        List<DocumentMatch> out = new ArrayList<>();
+        for (List<DocumentMatch> group : byParent.values()) {
+            if (out.size() >= topK) break;
 
-        List<DocumentMatch> matches = new java.util.ArrayList<>();
+            double best = group.stream().mapToDouble(DocumentMatch::distance).min().orElse(1.0);
+            Map<String, Object> meta = group.get(0).metadata();
+            if (group.size() == 1 || intMeta(meta, "chunk_index", -1) < 0) {
+                out.add(new DocumentMatch(group.get(0).text(), meta, best));
+                continue;
+            }
 
-        List<List<String>> docLists = (List<List<String>>) queryResult.get("documents");
-        List<List<Map<String, Object>>> metaLists = (List<List<Map<String, Object>>>) queryResult.get("metadatas");
-        List<List<Double>> distLists = (List<List<Double>>) queryResult.get("distances");
+            List<DocumentMatch> ordered = new ArrayList<>(group);
+            ordered.sort(Comparator.comparingInt(m -> intMeta(m.metadata(), "offset", 0)));
 
-        if (docLists == null || docLists.isEmpty()) {
-            return matches;
+            List<String> passages = new ArrayList<>();
+            StringBuilder cur = null;
+            int curEnd = -1;
+            int curIndex = -2;
+            for (DocumentMatch m : ordered) {
+                String text = (m.text() == null) ? "" : m.text();
+                int start = intMeta(m.metadata(), "offset", 0);
+                int end = intMeta(m.metadata(), "end", start + text.length());
+                int index = intMeta(m.metadata(), "chunk_index", 0);
+
+                if (cur != null && start <= curEnd) {
+                    // örtüşme: yalnızca yeni kısmı ekle
+                    int from = curEnd - start;
+                    if (end > curEnd && from < text.length()) cur.append(text, from, text.length());
+                } else if (cur != null && index == curIndex + 1) {
+                    cur.append(' ').append(text); // bitişik parça (arada yalnızca boşluk)
+                } else {
+                    if (cur != null) passages.add(cur.toString());
+                    cur = new StringBuilder(text);
+                }
+                curEnd = Math.max(curEnd, end);
+                curIndex = index;
+            }
+            if (cur != null) passages.add(cur.toString());
+
+            out.add(new DocumentMatch(String.join(" ... ", passages), meta, best));
+        }
+        return out;
+    }
+
+    private static int intMeta(Map<String, Object> meta, String key, int def) {
+        Object v = (meta != null) ? meta.get(key) : null;
+        if (v instanceof Number n) return n.intValue();
+        if (v != null) {
+            try {
+                return Integer.parseInt(v.toString());
+            } catch (NumberFormatException ignored) {
+                // aşağıda varsayılan
+            }
         }
+        return def;
+    }
+
+    private static final class Fused {
+        final String text;
+        final Map<String, Object> metadata;
+        double distance;
+        double rrf;
+
+        Fused(String text, Map<String, Object> metadata, double distance) {
+            this.text = text;
+            this.metadata = metadata;
+            this.distance = distance;
+        }
+    }
 
-        List<String> docs = docLists.get(0);
-        List<Map<String, Object>> metas = metaLists.get(0);
-        List<Double> dists = distLists.get(0);
+    private List<DocumentMatch> fuse(String query, List<DocumentMatch> vectorMatches,
+                                     List<Bm25Index.Hit> lexicalMatches, int topK) {
+        Map<String, Fused> byKey = new LinkedHashMap<>();
 
-        for (int i = 0; i < docs.size(); i++) {
-            matches.add(new DocumentMatch(
-                    docs.get(i),
-                    metas.get(i),
-                    dists.get(i)
-            ));
+        for (int rank = 0; rank < vectorMatches.size(); rank++) {
+            DocumentMatch m = vectorMatches.get(rank);
+            Fused f = byKey.computeIfAbsent(docKey(m.metadata(), m.text()),
+                    k -> new Fused(m.text(), m.metadata(), m.distance()));
+            f.rrf += 1.0 / (rrfK + rank + 1);
         }
 
-        // ✅ ZORUNLU: Mesafeye göre sırala (küçük mesafe = daha iyi eşleşme)
-        matches.sort((a, b) -> Double.compare(a.distance(), b.distance()));
+        for (int rank = 0; rank < lexicalMatches.size(); rank++) {
+            Bm25Index.Hit h = lexicalMatches.get(rank);
+            double lexicalDistance = 1.0 - lexicalWeight * h.coverage();
 
-        return matches;
+            // yalnızca lexical bacakta çıkan duyuru: tamamı yerine sorgu terimlerini en çok içeren parça
+            Fused f = byKey.computeIfAbsent(docKey(h.metadata(), h.text()),
+                    k -> new Fused(bestPassage(query, h.text()), h.metadata(), lexicalDistance));
+            f.distance = Math.min(f.distance, lexicalDistance);
+            f.rrf += 1.0 / (rrfK + rank + 1);
+        }
+
+        return byKey.values().stream()
+                .sorted((a, b) -> Double.compare(b.rrf, a.rrf))
+                .limit(topK)
+                .map(f -> new DocumentMatch(f.text, f.metadata, f.distance))
+                .toList();
+    }
+
+    private String bestPassage(String query, String content) {
+        List<AnnouncementChunker.Chunk> chunks = chunker.chunk(content);
+        if (chunks.size() <= 1) return content;
+
+        Set<String> terms = new HashSet<>(TurkishTokenizer.tokenize(query));
+        AnnouncementChunker.Chunk best = chunks.get(0);
+        long bestScore = -1;
+        for (AnnouncementChunker.Chunk c : chunks) {
+            long score = TurkishTokenizer.tokenize(c.text()).stream().distinct().filter(terms::contains).count();
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best.text();
+    }
+
+    private static String docKey(Map<String, Object> metadata, String text) {
+        if (metadata != null && metadata.get("id") != null) {
+            return metadata.getOrDefault("kind", "") + ":" + metadata.get("id");
+        }
+        return "text:" + (text == null ? "" : text.hashCode());
     }
 }
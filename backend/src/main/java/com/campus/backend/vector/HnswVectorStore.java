@@ -0,0 +1,682 @@
+package com.campus.backend.vector;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Uygulama içi HNSW vektör indeksi (Chroma'ya HTTP gitmeden top-k arama).
+ *
+ * - Vektörler normalize edilmiş float[] olarak tutulur; mesafe = 1 - dot (kosinüs, Chroma ile aynı ölçek).
+ * - Graf + vektörler + doküman/metadata memory-mapped bir dosyaya yazılır; açılışta
+ *   dosyadan okunur, graf yeniden kurulmaz. Dosya map-chunk'lık pencerelerle map edilir
+ *   (tek map çağrısının 2 GB sınırı yok). Zamanlanmış flush ile kapanış flush'ı ayrı bir
+ *   kilitle sıralanır; aynı .tmp dosyasına iki yazıcı girmez.
+ * - Aynı id tekrar gelirse eski düğüm silindi (tombstone) olarak işaretlenir, yenisi eklenir.
+ *   Arama tombstone'ları geçiş için kullanır ama döndürmez; topK canlı düğüm bulunana kadar ef
+ *   büyütülür. Tombstone oranı compact-ratio'yu geçince graf canlı düğümlerle yeniden kurulur
+ *   (yazma kilidi altında); dizi ve dosya düzenleme/yeniden indekslemeyle sınırsız büyümez.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.vector.store", havingValue = "embedded")
+public class HnswVectorStore implements VectorStore {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int FORMAT_VERSION = 1;
+    private static final int COMPACT_MIN_NODES = 64;          // küçük indekste yeniden kurmaya değmez
+    private static final long DEFAULT_MAP_CHUNK_BYTES = 64L << 20;
+
+    private final ObjectMapper objectMapper;
+    private final Path indexPath;
+    private final int m;
+    private final int mMax0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMult;
+    private final double compactRatio;
+    private final long mapChunkBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock(); // flush'lar arası (.tmp tek yazıcı)
+
+    // ---- Graf durumu (lock altında) ----
+    private int dim;
+    private int size;
+    private float[][] vectors = new float[16][];
+    private int[][][] links = new int[16][][];   // düğüm -> seviye -> komşu düğümler
+    private String[] ids = new String[16];
+    private String[] docs = new String[16];
+    private String[] metaJson = new String[16];
+    private boolean[] deleted = new boolean[16];
+    private final Map<String, Integer> idToNode = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int tombstones;
+
+    private volatile boolean dirty;
+
+    public HnswVectorStore(
+            ObjectMapper objectMapper,
+            @Value("${app.vector.embedded.path:./data/campus_kg.hnsw}") String path,
+            @Value("${app.vector.embedded.m:16}") int m,
+            @Value("${app.vector.embedded.ef-construction:200}") int efConstruction,
+            @Value("${app.vector.embedded.ef-search:64}") int efSearch,
+            @Value("${app.vector.embedded.compact-ratio:0.2}") double compactRatio
+    ) {
+        this(objectMapper, path, m, efConstruction, efSearch, compactRatio, DEFAULT_MAP_CHUNK_BYTES);
+    }
+
+    HnswVectorStore(ObjectMapper objectMapper, String path, int m, int efConstruction, int efSearch,
+                    double compactRatio, long mapChunkBytes) {
+        this.objectMapper = objectMapper;
+        this.indexPath = Path.of(path);
+        this.m = m;
+        this.mMax0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMult = 1.0 / Math.log(m);
+        this.compactRatio = compactRatio;
+        this.mapChunkBytes = mapChunkBytes;
+        load();
+        compactIfNeeded();
+    }
+
+    // ------------------- VectorStore -------------------
+
+    @Override
+    public void ensureCollection(String name, int dimensionality) {
+        lock.writeLock().lock();
+        try {
+            if (size == 0) {
+                this.dim = dimensionality;
+            } else if (dim != dimensionality) {
+                log.warn("HNSW: indeks boyutu {} ama {} istendi; mevcut indeks kullanılacak", dim, dimensionality);
+            }
+            log.info("HNSW ensure: name={} dim={} nodes={}", name, dim, idToNode.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsertAll(List<String> idList, List<float[]> vectorList,
+                          List<Map<String, Object>> metas, List<String> docList) {
+        if (idList.size() != vectorList.size() || metas.size() != idList.size() || docList.size() != idList.size()) {
+            throw new IllegalArgumentException("HNSW upsertAll: liste boyutları uyuşmuyor");
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < idList.size(); i++) {
+                float[] v = normalize(vectorList.get(i));
+                if (dim == 0) dim = v.length;
+                if (v.length != dim) {
+                    throw new IllegalArgumentException("HNSW: vektör boyutu " + v.length + " != " + dim);
+                }
+
+                Integer old = idToNode.get(idList.get(i));
+                if (old != null) markDeleted(old);
+
+                int node = insert(v, idList.get(i), docList.get(i), toJson(metas.get(i)));
+                idToNode.put(idList.get(i), node);
+            }
+            dirty = true;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        if (idList == null || idList.isEmpty()) return;
+
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer node = idToNode.remove(id);
+                if (node != null) {
+                    markDeleted(node); // düğüm grafikte kalır, sonuçlardan elenir
+                    dirty = true;
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<DocumentMatch> search(float[] vector, int topK) {
+        float[] q = normalize(vector);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || topK <= 0) return List.of();
+
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedyClosest(q, ep, level);
+            }
+
+            // tombstone'lar adayları doldurabilir: topK canlı düğüm çıkana (ya da graf bitene) kadar ef'i büyüt
+            int ef = Math.max(efSearch, topK);
+            List<Candidate> sorted;
+            while (true) {
+                sorted = new ArrayList<>(searchLayer(q, ep, ef, 0));
+                int live = 0;
+                for (Candidate c : sorted) if (!deleted[c.node()]) live++;
+                if (live >= topK || ef >= size) break;
+                ef = Math.min(size, ef * 2);
+            }
+            sorted.sort(Comparator.comparingDouble(Candidate::distance));
+
+            List<DocumentMatch> out = new ArrayList<>(topK);
+            for (Candidate c : sorted) {
+                if (deleted[c.node()]) continue;
+                out.add(new DocumentMatch(docs[c.node()], fromJson(metaJson[c.node()]), c.distance()));
+                if (out.size() >= topK) break;
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Canlı (silinmemiş) id sayısı. */
+    int liveCount() {
+        lock.readLock().lock();
+        try {
+            return idToNode.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Grafikteki düğüm sayısı (tombstone'lar dahil). */
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ------------------- HNSW -------------------
+
+    private record Candidate(int node, float distance) {}
+
+    private void markDeleted(int node) {
+        if (deleted[node]) return;
+        deleted[node] = true;
+        tombstones++;
+    }
+
+    private void compactIfNeeded() {
+        if (size < COMPACT_MIN_NODES || tombstones == 0 || tombstones < compactRatio * size) return;
+        compact();
+    }
+
+    /** Grafiği yalnızca canlı düğümlerle yeniden kurar (yazma kilidi altında). */
+    private void compact() {
+        long start = System.nanoTime();
+        int before = size;
+        int live = size - tombstones;
+        float[][] liveVectors = new float[live][];
+        String[] liveIds = new String[live];
+        String[] liveDocs = new String[live];
+        String[] liveMeta = new String[live];
+        int k = 0;
+        for (int n = 0; n < size; n++) {
+            if (deleted[n]) continue;
+            liveVectors[k] = vectors[n];
+            liveIds[k] = ids[n];
+            liveDocs[k] = docs[n];
+            liveMeta[k] = metaJson[n];
+            k++;
+        }
+
+        int keepDim = dim;
+        resetState();
+        dim = keepDim;
+        int cap = Math.max(16, live);
+        vectors = new float[cap][];
+        links = new int[cap][][];
+        ids = new String[cap];
+        docs = new String[cap];
+        metaJson = new String[cap];
+        deleted = new boolean[cap];
+        for (int i = 0; i < k; i++) {
+            idToNode.put(liveIds[i], insert(liveVectors[i], liveIds[i], liveDocs[i], liveMeta[i]));
+        }
+        dirty = true;
+        log.info("HNSW sıkıştırıldı: {} → {} düğüm ({} ms)", before, size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int insert(float[] v, String id, String doc, String meta) {
+        int node = size;
+        ensureCapacity(node + 1);
+
+        int level = randomLevel();
+        vectors[node] = v;
+        ids[node] = id;
+        docs[node] = doc;
+        metaJson[node] = meta;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) links[node][l] = new int[0];
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(v, ep, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> w = searchLayer(v, ep, efConstruction, l);
+            int maxConn = (l == 0) ? mMax0 : m;
+
+            int[] neighbours = closest(w, m);
+            links[node][l] = neighbours;
+
+            for (int nb : neighbours) {
+                connect(nb, node, l, maxConn);
+            }
+
+            // bir alt seviyede en yakın adaydan devam et
+            ep = neighbours.length > 0 ? neighbours[0] : ep;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /** nb düğümüne node'u komşu olarak ekle; kapasite aşılırsa en yakın maxConn komşuyu tut. */
+    private void connect(int nb, int node, int level, int maxConn) {
+        int[] current = links[nb][level];
+        int[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = node;
+
+        if (grown.length <= maxConn) {
+            links[nb][level] = grown;
+            return;
+        }
+
+        PriorityQueue<Candidate> pq = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+        for (int c : grown) {
+            pq.add(new Candidate(c, distance(vectors[nb], vectors[c])));
+        }
+        links[nb][level] = closest(pq, maxConn);
+    }
+
+    private int greedyClosest(float[] q, int ep, int level) {
+        int cur = ep;
+        float curDist = distance(q, vectors[cur]);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] nbs = (level < links[cur].length) ? links[cur][level] : new int[0];
+            for (int nb : nbs) {
+                float d = distance(q, vectors[nb]);
+                if (d < curDist) {
+                    curDist = d;
+                    cur = nb;
+                    changed = true;
+                }
+            }
+        }
+        return cur;
+    }
+
+    /** Standart HNSW katman araması; en iyi ef adayı max-heap olarak döner. */
+    private PriorityQueue<Candidate> searchLayer(float[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        visited.set(ep);
+
+        Candidate start = new Candidate(ep, distance(q, vectors[ep]));
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> result = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+        candidates.add(start);
+        result.add(start);
+
+        while (!candidates.isEmpty()) {
+            Candidate c = candidates.poll();
+            if (c.distance() > result.peek().distance() && result.size() >= ef) break;
+
+            int[] nbs = (level < links[c.node()].length) ? links[c.node()][level] : new int[0];
+            for (int nb : nbs) {
+                if (visited.get(nb)) continue;
+                visited.set(nb);
+
+                float d = distance(q, vectors[nb]);
+                if (result.size() < ef || d < result.peek().distance()) {
+                    Candidate next = new Candidate(nb, d);
+                    candidates.add(next);
+                    result.add(next);
+                    if (result.size() > ef) result.poll();
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Max-heap'ten en yakın k düğümü (yakından uzağa) döndürür. */
+    private static int[] closest(PriorityQueue<Candidate> maxHeap, int k) {
+        List<Candidate> all = new ArrayList<>(maxHeap);
+        all.sort(Comparator.comparingDouble(Candidate::distance));
+        int n = Math.min(k, all.size());
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = all.get(i).node();
+        return out;
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, 1e-12)) * levelMult);
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++) dot += a[i] * b[i];
+        return 1f - dot;
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        float[] out = new float[v.length];
+        if (norm == 0) return out;
+        for (int i = 0; i < v.length; i++) out[i] = (float) (v[i] / norm);
+        return out;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= vectors.length) return;
+        int cap = Math.max(needed, vectors.length * 2);
+        vectors = Arrays.copyOf(vectors, cap);
+        links = Arrays.copyOf(links, cap);
+        ids = Arrays.copyOf(ids, cap);
+        docs = Arrays.copyOf(docs, cap);
+        metaJson = Arrays.copyOf(metaJson, cap);
+        deleted = Arrays.copyOf(deleted, cap);
+    }
+
+    // ------------------- Kalıcılık (memory-mapped dosya) -------------------
+
+    @Scheduled(fixedDelayString = "${app.vector.embedded.flush-interval-ms:30000}")
+    public void flushIfDirty() {
+        if (dirty) flush();
+    }
+
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            lock.readLock().lock();
+            try {
+                dirty = false;
+                writeIndex();
+                log.info("HNSW indeks yazıldı: {} ({} düğüm)", indexPath, size);
+            } catch (IOException e) {
+                dirty = true;
+                log.error("HNSW indeks yazılamadı: {}", indexPath, e);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        byte[][] idBytes = new byte[size][];
+        byte[][] docBytes = new byte[size][];
+        byte[][] metaBytes = new byte[size][];
+
+        long total = 7L * Integer.BYTES;
+        for (int n = 0; n < size; n++) {
+            idBytes[n] = ids[n].getBytes(StandardCharsets.UTF_8);
+            docBytes[n] = (docs[n] == null ? "" : docs[n]).getBytes(StandardCharsets.UTF_8);
+            metaBytes[n] = (metaJson[n] == null ? "{}" : metaJson[n]).getBytes(StandardCharsets.UTF_8);
+
+            total += 1 + Integer.BYTES; // deleted + level
+            total += 3L * Integer.BYTES + idBytes[n].length + docBytes[n].length + metaBytes[n].length;
+            total += (long) dim * Float.BYTES;
+            for (int[] level : links[n]) total += Integer.BYTES + (long) level.length * Integer.BYTES;
+        }
+
+        Path parent = indexPath.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+        try (FileChannel ch = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            MappedFile buf = new MappedFile(ch, FileChannel.MapMode.READ_WRITE, total, mapChunkBytes);
+            buf.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dim).putInt(size)
+                    .putInt(entryPoint).putInt(maxLevel).putInt(m);
+
+            for (int n = 0; n < size; n++) {
+                buf.put((byte) (deleted[n] ? 1 : 0));
+                buf.putInt(links[n].length - 1);
+                putBytes(buf, idBytes[n]);
+                putBytes(buf, docBytes[n]);
+                putBytes(buf, metaBytes[n]);
+                for (float f : vectors[n]) buf.putFloat(f);
+                for (int[] level : links[n]) {
+                    buf.putInt(level.length);
+                    for (int nb : level) buf.putInt(nb);
+                }
+            }
+            buf.force();
+        }
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() {
+        if (!Files.exists(indexPath)) {
+            log.info("HNSW indeks dosyası yok, boş başlatılıyor: {}", indexPath);
+            return;
+        }
+
+        try (FileChannel ch = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            MappedFile buf = new MappedFile(ch, FileChannel.MapMode.READ_ONLY, ch.size(), mapChunkBytes);
+
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) {
+                log.warn("HNSW indeks dosyası tanınmadı, yok sayılıyor: {}", indexPath);
+                return;
+            }
+            dim = buf.getInt();
+            int count = buf.getInt();
+            entryPoint = buf.getInt();
+            maxLevel = buf.getInt();
+            int storedM = buf.getInt();
+            if (storedM != m) {
+                log.warn("HNSW: dosyadaki M={} ayardaki M={} ile farklı; dosyadaki graf kullanılacak", storedM, m);
+            }
+
+            ensureCapacity(count);
+            for (int n = 0; n < count; n++) {
+                deleted[n] = buf.get() == 1;
+                int level = buf.getInt();
+                ids[n] = getString(buf);
+                docs[n] = getString(buf);
+                metaJson[n] = getString(buf);
+
+                float[] v = new float[dim];
+                for (int i = 0; i < dim; i++) v[i] = buf.getFloat();
+                vectors[n] = v;
+
+                links[n] = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    int[] nbs = new int[buf.getInt()];
+                    for (int i = 0; i < nbs.length; i++) nbs[i] = buf.getInt();
+                    links[n][l] = nbs;
+                }
+                if (deleted[n]) tombstones++;
+                else idToNode.put(ids[n], n);
+            }
+            size = count;
+            log.info("HNSW indeks yüklendi: {} ({} düğüm, dim={})", indexPath, size, dim);
+
+        } catch (Exception e) {
+            log.error("HNSW indeks okunamadı, boş başlatılıyor: {}", indexPath, e);
+            resetState();
+        }
+    }
+
+    private void resetState() {
+        dim = 0;
+        size = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+        tombstones = 0;
+        idToNode.clear();
+        Arrays.fill(vectors, null);
+        Arrays.fill(links, null);
+    }
+
+    private static void putBytes(MappedFile buf, byte[] bytes) throws IOException {
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getString(MappedFile buf) throws IOException {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Dosyanın chunk baytlık pencerelerle sıralı map edilmesi (tek MappedByteBuffer 2 GB ile sınırlı).
+     * Değerler pencere sınırında bölünmez; bayt dizileri pencereler arasında parça parça yazılır/okunur.
+     */
+    private static final class MappedFile {
+        private final FileChannel ch;
+        private final FileChannel.MapMode mode;
+        private final long length;
+        private final long chunk;
+        private long base;
+        private MappedByteBuffer buf;
+
+        MappedFile(FileChannel ch, FileChannel.MapMode mode, long length, long chunk) throws IOException {
+            this.ch = ch;
+            this.mode = mode;
+            this.length = length;
+            this.chunk = Math.max(Long.BYTES, Math.min(chunk, Integer.MAX_VALUE));
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            if (buf != null && mode == FileChannel.MapMode.READ_WRITE) buf.force();
+            base = position;
+            buf = ch.map(mode, position, Math.min(chunk, length - position));
+        }
+
+        /** Pencerede n bayt yoksa bulunulan konumdan yeni pencere açar. */
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) map(base + buf.position());
+        }
+
+        MappedFile putInt(int v) throws IOException {
+            ensure(Integer.BYTES);
+            buf.putInt(v);
+            return this;
+        }
+
+        void putFloat(float v) throws IOException {
+            ensure(Float.BYTES);
+            buf.putFloat(v);
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            buf.put(b);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                if (!buf.hasRemaining()) map(base + buf.position());
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, n);
+                off += n;
+            }
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buf.getInt();
+        }
+
+        float getFloat() throws IOException {
+            ensure(Float.BYTES);
+            return buf.getFloat();
+        }
+
+        byte get() throws IOException {
+            ensure(1);
+            return buf.get();
+        }
+
+        void get(byte[] bytes) throws IOException {
+            int off = 0;
+            while (off < bytes.length) {
+                if (!buf.hasRemaining()) map(base + buf.position());
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.get(bytes, off, n);
+                off += n;
+            }
+        }
+
+        void force() {
+            buf.force();
+        }
+    }
+
+    private String toJson(Map<String, Object> meta) {
+        try {
+            return objectMapper.writeValueAsString(meta == null ? Map.of() : meta);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("HNSW: metadata JSON'a çevrilemedi", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (IOException e) {
+            return Map.of();
+        }
+    }
+}
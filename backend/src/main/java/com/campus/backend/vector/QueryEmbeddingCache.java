@@ -0,0 +1,93 @@
+package com.campus.backend.vector;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Sorgu embedding'leri için sınırlı (boyut + TTL) önbellek.
+ * Anahtar: model adı + normalize edilmiş sorgu metni. Değer: ham float[] vektör.
+ * Önbellek süreç içidir; model/ayar değişikliği yeniden başlatmayla gelir, ayrıca temizleme gerekmez.
+ *
+ * Metrikler (/actuator/metrics):
+ *  - cache.gets{cache=query_embeddings,result=hit|miss}
+ *  - embedding.query.latency   : gerçek embed çağrılarının süresi (miss)
+ *  - embedding.query.saved     : hit başına tasarruf edilen tahmini süre (ms)
+ */
+@Component
+public class QueryEmbeddingCache {
+
+    private static final Locale LOCALE_TR = Locale.forLanguageTag("tr-TR");
+
+    private final String modelName;
+    private final Cache<String, float[]> cache;
+    private final Timer missLatency;
+    private final DistributionSummary savedMs;
+
+    public QueryEmbeddingCache(
+            MeterRegistry registry,
+            @Value("${app.openai.embedding-model:text-embedding-3-small}") String modelName,
+            @Value("${app.embedding-cache.max-size:5000}") long maxSize,
+            @Value("${app.embedding-cache.ttl:6h}") Duration ttl
+    ) {
+        this.modelName = modelName;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "query_embeddings");
+        this.missLatency = Timer.builder("embedding.query.latency")
+                .description("Önbellekte bulunmayan sorgular için embed çağrısı süresi")
+                .register(registry);
+        this.savedMs = DistributionSummary.builder("embedding.query.saved")
+                .description("Önbellek isabeti başına kazanılan tahmini süre")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    /**
+     * Sorgunun vektörünü önbellekten döndürür; yoksa normalize edilmiş metni embedder ile
+     * hesaplayıp saklar (anahtar ile embed edilen metin aynı). Aynı anahtarı aynı anda isteyenler
+     * tek embed çağrısını bekler. embedder null dönerse saklanmaz.
+     */
+    public float[] get(String query, Function<String, float[]> embedder) {
+        boolean[] loaded = {false};
+        float[] vector = cache.get(key(query), k -> {
+            loaded[0] = true;
+            long start = System.nanoTime();
+            try {
+                return embedder.apply(normalize(query));
+            } finally {
+                missLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+
+        if (!loaded[0]) {
+            // hit: ortalama miss süresi kadar round-trip'ten kaçındık
+            savedMs.record(missLatency.mean(TimeUnit.MILLISECONDS));
+        }
+        return vector;
+    }
+
+    /** Büyük/küçük harf ve boşluk farkları aynı anahtara düşsün. */
+    static String normalize(String query) {
+        if (query == null) return "";
+        return query.trim().toLowerCase(LOCALE_TR).replaceAll("\\s+", " ");
+    }
+
+    private String key(String query) {
+        return modelName + "|" + normalize(query);
+    }
+}
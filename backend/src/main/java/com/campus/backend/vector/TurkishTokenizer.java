@@ -0,0 +1,96 @@
+package com.campus.backend.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * BM25 için Türkçe farkında basit tokenizer.
+ *
+ * - Türkçe küçük harf (İ→i, I→ı), sonra aksan katlama (ç→c, ğ→g, ı→i, ö→o, ş→s, ü→u):
+ *   öğrenciler çoğu zaman "harc odeme" diye yazıyor.
+ * - Harf/rakam dizileri token olur; "01.09.2025", "15/09" gibi tarihler tek token kalır.
+ * - Harf tokenları ilk 5 karaktere kesilir (F5 kökleme): "başvuru", "başvurular", "başvuruları" → "basvu".
+ *   Türkçe ekleri için ucuz ve bilinen bir yaklaşım. Rakam içeren tokenlara (ders kodu, tarih) dokunulmaz.
+ */
+public final class TurkishTokenizer {
+
+    private static final Locale LOCALE_TR = Locale.forLanguageTag("tr-TR");
+    private static final int STEM_PREFIX = 5;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "ve", "ile", "bir", "bu", "su", "o", "da", "de", "ki", "mi", "mu",
+            "icin", "gibi", "ne", "nasil", "hangi", "veya", "ya", "ama", "fakat",
+            "olan", "olarak", "daha", "en", "cok", "her", "ise", "var", "yok"
+    );
+
+    private TurkishTokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null || text.isEmpty()) return out;
+
+        String s = fold(text.toLowerCase(LOCALE_TR));
+        StringBuilder cur = new StringBuilder();
+        boolean hasDigit = false;
+
+        for (int i = 0; i <= s.length(); i++) {
+            char c = (i < s.length()) ? s.charAt(i) : ' ';
+
+            if (Character.isLetterOrDigit(c)) {
+                cur.append(c);
+                hasDigit |= Character.isDigit(c);
+                continue;
+            }
+
+            // "01.09.2025" / "15/09": rakamlar arasındaki ayraçları token içinde tut
+            boolean dateSeparator = (c == '.' || c == '/' || c == '-')
+                    && hasDigit
+                    && i + 1 < s.length()
+                    && Character.isDigit(s.charAt(i + 1))
+                    && cur.length() > 0
+                    && Character.isDigit(cur.charAt(cur.length() - 1));
+            if (dateSeparator) {
+                cur.append(c);
+                continue;
+            }
+
+            emit(cur, hasDigit, out);
+            cur.setLength(0);
+            hasDigit = false;
+        }
+        return out;
+    }
+
+    private static void emit(StringBuilder cur, boolean hasDigit, List<String> out) {
+        if (cur.length() == 0) return;
+        String token = cur.toString();
+        if (!hasDigit) {
+            if (token.length() < 2 || STOPWORDS.contains(token)) return;
+            if (token.length() > STEM_PREFIX) token = token.substring(0, STEM_PREFIX);
+        }
+        out.add(token);
+    }
+
+    /** Türkçe aksan katlama (küçük harfli girdi için); FAQ soru anahtarı da aynı katlamayı kullanır. */
+    public static String fold(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case 'ç' -> sb.append('c');
+                case 'ğ' -> sb.append('g');
+                case 'ı' -> sb.append('i');
+                case 'ö' -> sb.append('o');
+                case 'ş' -> sb.append('s');
+                case 'ü' -> sb.append('u');
+                case 'â' -> sb.append('a');
+                case 'î' -> sb.append('i');
+                case 'û' -> sb.append('u');
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.campus.backend.vector;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EmbeddingService'in arkasındaki vektör deposu.
+ * app.vector.store = chroma (varsayılan, HTTP) | embedded (uygulama içi HNSW)
+ *
+ * Mesafe: kosinüs mesafesi (1 - cos). Küçük = daha benzer.
+ */
+public interface VectorStore {
+
+    /** Koleksiyonu hazırla (yoksa oluştur). Hata fırlatmaz; loglar. */
+    void ensureCollection(String name, int dimensionality);
+
+    /** Listeler aynı uzunlukta ve aynı sırada olmalı. Aynı id tekrar gelirse üzerine yazılır. */
+    void upsertAll(List<String> ids, List<float[]> vectors, List<Map<String, Object>> metas, List<String> docs);
+
+    /** Verilen id'leri siler; olmayan id'ler yok sayılır. */
+    void delete(List<String> ids);
+
+    /** En yakın topK dokümanı mesafeye göre artan sırada döndürür. */
+    List<DocumentMatch> search(float[] vector, int topK);
+}
@@ -0,0 +1,218 @@
+package com.campus.backend.etl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsSakaryaClient ve OgrWebmailSssClient'ın kaydedilmiş cevaplar üzerinde (ağ yok) verimi:
+ * saniyedeki kayıt (items), sayfa başına parse süresi ve GC profiler ile bellek ayırma.
+ *
+ * Gerçek korpus kaydı: uygulamayı app.crawler.archive.mode=record ile çalıştırıp ETL'i tetikleyin
+ * (POST /api/etl/run/{kaynak}); arşiv düzgün kapanışta app.crawler.archive.path'e yazılır.
+ * Ardından:
+ *
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath -Dcrawler.archive=data/crawler-archive.bin.gz com.campus.backend.etl.CrawlerReplayBenchmark"
+ * </pre>
+ *
+ * crawler.archive verilmezse sitelerin biçiminde üretilmiş bir korpus kullanılır.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrawlerReplayBenchmark {
+
+    static final String CS_LIST = "https://cs.sakarya.edu.tr/tr/duyuru/goruntule/liste/0/";
+    static final String CS_DETAIL = "https://cs.sakarya.edu.tr/tr/duyuru/goruntule/detay/";
+    static final String SSS_BASE = "https://ogrwebmail.sakarya.edu.tr";
+
+    private CsSakaryaClient csSakarya;
+    private OgrWebmailSssClient ogrWebmailSss;
+    private CrawlerEngine crawler;
+    private List<HttpResponse<byte[]>> pages;
+    private int nextPage;
+
+    /** Ölçüm turu başına sink'e verilen kayıt; JMH bunu saniyedeki kayıt olarak raporlar. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Items {
+        public long items;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            items = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        String recorded = System.getProperty("crawler.archive");
+        Path path = (recorded != null) ? Path.of(recorded) : syntheticArchive();
+
+        crawler = new CrawlerEngine(new SimpleMeterRegistry(), new MockEnvironment(), Duration.ofSeconds(10),
+                "replay", path);
+        ReflectionTestUtils.setField(crawler, "userAgent", "benchmark");
+        ReflectionTestUtils.setField(crawler, "maxRetries", 0);
+        ReflectionTestUtils.setField(crawler, "initialBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(crawler, "requestTimeout", Duration.ofSeconds(15));
+
+        csSakarya = new CsSakaryaClient(crawler);
+        ReflectionTestUtils.setField(csSakarya, "maxPages", 200);
+        ReflectionTestUtils.setField(csSakarya, "maxInFlight", 16);
+
+        ogrWebmailSss = new OgrWebmailSssClient(crawler);
+        ReflectionTestUtils.setField(ogrWebmailSss, "baseUrl", SSS_BASE);
+        ReflectionTestUtils.setField(ogrWebmailSss, "menuUrl", "");
+        ReflectionTestUtils.setField(ogrWebmailSss, "categoryIdsCsv", "");
+        ReflectionTestUtils.setField(ogrWebmailSss, "maxItems", 2000);
+        ReflectionTestUtils.setField(ogrWebmailSss, "maxInFlight", 32);
+
+        HttpArchive archive = HttpArchive.load(path);
+        HttpTransport replay = archive.replaying();
+        pages = archive.entries().stream()
+                .filter(e -> e.status() == 200)
+                .map(e -> {
+                    try {
+                        return replay.send(HttpRequest.newBuilder(URI.create(e.url()))
+                                .method(e.method(), HttpRequest.BodyPublishers.noBody()).build());
+                    } catch (IOException | InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                })
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        crawler.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void csSakaryaPull(Items items) throws Exception {
+        csSakarya.fetchLatest(FetchContext.empty(), raw -> items.items++);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void ogrWebmailSssPull(Items items) throws Exception {
+        ogrWebmailSss.fetchLatest(FetchContext.empty(), raw -> items.items++);
+    }
+
+    /** Arşivdeki sayfalar sırayla: liste, detay ve modal karışık. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Document parsePage() throws IOException {
+        HttpResponse<byte[]> page = pages.get(nextPage++ % pages.size());
+        return CrawlerEngine.parse(page, page.uri().toString());
+    }
+
+    // ------------------- Üretilmiş korpus -------------------
+
+    /** cs.sakarya: 10 liste sayfası x 20 duyuru; ogrwebmail: 9 kategori x 60 soru. */
+    static Path syntheticArchive() throws IOException {
+        HttpArchive archive = new HttpArchive();
+        int id = 9000;
+        for (int page = 1; page <= 10; page++) {
+            StringBuilder list = new StringBuilder("<html><body><div class=\"container\"><div class=\"row\">");
+            for (int i = 0; i < 20; i++, id--) {
+                String href = "/tr/duyuru/goruntule/detay/" + id + "/duyuru-" + id;
+                list.append("<div class=\"col-md-12 blog-post\"><div class=\"post-content\">")
+                        .append("<h4><a href=\"").append(href).append("\">Bilgisayar Mühendisliği Duyurusu ").append(id)
+                        .append("</a></h4><p class=\"date\"><i class=\"fa fa-calendar\"></i> ")
+                        .append(1 + id % 28).append(" Ekim 2025</p>")
+                        .append("<p>Öğrencilerimizin dikkatine, ders kayıtları ve sınav takvimi hakkında.</p>")
+                        .append("<a class=\"btn btn-primary\" href=\"").append(href).append("\">Görüntüle</a></div></div>");
+                archive.put(html("GET", CS_DETAIL + id + "/duyuru-" + id, detailPage(id)));
+            }
+            list.append("</div></div></body></html>");
+            archive.put(html("GET", CS_LIST + page, list.toString()));
+        }
+
+        StringBuilder landing = new StringBuilder("<html><body><ul class=\"nav\">");
+        int sssId = 1;
+        for (int cat : new int[]{2, 13, 14, 15, 7, 4, 3, 5, 16}) {
+            landing.append("<li><button class=\"nav-link\" data-id=\"").append(cat).append("\">Kategori ")
+                    .append(cat).append("</button></li>");
+            StringBuilder list = new StringBuilder("<div class=\"accordion\">");
+            for (int q = 0; q < 60; q++, sssId++) {
+                list.append("<button class=\"btn btn-link\" data-sss-id=\"").append(sssId)
+                        .append("\" onclick=\"SssModal(").append(sssId).append(")\"><strong>E-posta şifremi nasıl sıfırlarım? (")
+                        .append(sssId).append(")</strong></button>");
+                archive.put(html("GET", SSS_BASE + "/Home/SssModal/" + sssId,
+                        "<div class=\"modal-body\"><p>Şifre sıfırlama için <a href=\"/sifre\">bağlantıyı</a> kullanın. "
+                                + "Öğrenci numaranız ve T.C. kimlik numaranız ile doğrulama yapılır.</p>"
+                                + "<ol><li>Giriş ekranında &quot;Şifremi unuttum&quot;</li><li>Doğrulama kodu</li></ol></div>"));
+            }
+            archive.put(html("POST", SSS_BASE + "/Home/SSSorular/" + cat, list.append("</div>").toString()));
+        }
+        archive.put(html("GET", SSS_BASE + "/", landing.append("</ul></body></html>").toString()));
+
+        Path path = Files.createTempFile("crawler-archive", ".bin.gz");
+        path.toFile().deleteOnExit();
+        archive.save(path);
+        return path;
+    }
+
+    private static String detailPage(int id) {
+        StringBuilder sb = new StringBuilder("<html><head><title>Duyuru</title></head><body><header><nav>")
+                .append("<a href=\"/\">Anasayfa</a> <a href=\"/tr/duyuru\">Duyurular</a></nav></header>")
+                .append("<div class=\"blog-post-inner\"><h3>Duyuru ").append(id).append("</h3>");
+        for (int p = 0; p < 6; p++) {
+            sb.append("<p>2025-2026 Güz yarıyılı <strong>ders kayıtları</strong> 22.09.2025&nbsp;-&nbsp;26.09.2025 ")
+                    .append("tarihleri arasında yapılacaktır. Ayrıntılı bilgi için <a href=\"/takvim\">tıklayınız</a>.</p>");
+        }
+        sb.append("<table class=\"table\"><tr><th>Ders</th><th>Tarih</th></tr>");
+        for (int r = 0; r < 8; r++) sb.append("<tr><td>BSM10").append(r).append("</td><td>24.01.2025</td></tr>");
+        return sb.append("</table></div><footer>Sakarya Üniversitesi</footer></body></html>").toString();
+    }
+
+    private static HttpArchive.Entry html(String method, String url, String body) {
+        return new HttpArchive.Entry(method, url, 200,
+                Map.of("content-type", List.of("text/html; charset=utf-8")),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CrawlerReplayBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
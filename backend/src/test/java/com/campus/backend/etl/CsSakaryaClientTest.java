@@ -0,0 +1,177 @@
+package com.campus.backend.etl;
+
+import com.campus.backend.entity.HttpValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsSakaryaClientTest {
+
+    static final String CS_LIST = "https://cs.sakarya.edu.tr/tr/duyuru/goruntule/liste/0/";
+    static final String CS_DETAIL = "https://cs.sakarya.edu.tr/tr/duyuru/goruntule/detay/";
+
+    private FakeSite site;
+    private CsSakaryaClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 3 liste sayfası x 5 duyuru (en yeni 115), 4. sayfa boş
+        site = new FakeSite();
+        int id = 115;
+        for (int page = 1; page <= 3; page++) {
+            StringBuilder list = new StringBuilder("<html><body>");
+            for (int i = 0; i < 5; i++, id--) {
+                String href = "/tr/duyuru/goruntule/detay/" + id + "/duyuru-" + id;
+                list.append("<div class=\"post-content\"><h4><a href=\"").append(href).append("\">Duyuru ").append(id)
+                        .append("</a></h4><p class=\"date\">20 Ekim 2025</p>")
+                        .append("<a class=\"btn btn-primary\" href=\"").append(href).append("\">Görüntüle</a></div>");
+                site.pages.put(detail(id), "<div class=\"blog-post-inner\"><p>İçerik " + id + "</p></div>");
+            }
+            site.pages.put(CS_LIST + page, list.append("</body></html>").toString());
+        }
+        site.pages.put(CS_LIST + 4, "<html><body></body></html>");
+
+        client = new CsSakaryaClient(site);
+        ReflectionTestUtils.setField(client, "maxPages", 10);
+        ReflectionTestUtils.setField(client, "maxInFlight", 4);
+        ReflectionTestUtils.setField(client, "revalidateKnown", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        site.shutdown();
+    }
+
+    @Test
+    void failedDetailOnLaterPageIsRetriedAfterPartialRun() throws Exception {
+        site.failing.add(detail(103)); // 3. sayfada
+
+        FetchContext first = new FetchContext(Set.of(), null);
+        List<String> firstIds = pull(first);
+        assertTrue(first.isIncomplete());
+        assertEquals(14, firstIds.size());
+        assertFalse(firstIds.contains("103"));
+
+        // EtlService: kaydedilen kayıtlar bilinir, doğrulayıcılar çalıştırma sonunda yazılır
+        site.failing.clear();
+        List<HttpValidator> saved = new ArrayList<>(first.pendingValidators());
+        assertTrue(saved.stream().noneMatch(v -> v.getUrl().equals(CS_LIST + 3)));
+
+        // normal çalıştırma yeni duyurusu olmayan 2. sayfada durur ve 3. sayfadaki eksik duyuruya ulaşmaz
+        assertEquals(List.of(), pull(new FetchContext(Set.copyOf(firstIds), null, saved, false)));
+
+        FetchContext retry = new FetchContext(Set.copyOf(firstIds), null, saved, true);
+        assertEquals(List.of("103"), pull(retry));
+        assertFalse(retry.isIncomplete());
+    }
+
+    @Test
+    void editedKnownAnnouncementIsRevalidated() throws Exception {
+        FetchContext first = new FetchContext(Set.of(), null);
+        List<String> ids = pull(first);
+        assertEquals(15, ids.size());
+
+        // liste sayfası aynı kalır, yalnızca detay düzenlenir; değişmeyen detaylar 304 döner
+        site.pages.put(detail(114), "<div class=\"blog-post-inner\"><p>Düzenlendi</p></div>");
+        FetchContext next = new FetchContext(Set.copyOf(ids), null, List.copyOf(first.pendingValidators()), false);
+        List<RawAnnouncement> changed = new ArrayList<>();
+        client.fetchLatest(next, changed::add);
+
+        assertEquals(1, changed.size());
+        assertEquals("114", changed.get(0).externalId());
+        assertTrue(changed.get(0).htmlContent().contains("Düzenlendi"));
+    }
+
+    private List<String> pull(FetchContext context) throws Exception {
+        List<String> ids = new ArrayList<>();
+        client.fetchLatest(context, raw -> ids.add(raw.externalId()));
+        return ids;
+    }
+
+    private static String detail(int id) {
+        return CS_DETAIL + id + "/duyuru-" + id;
+    }
+
+    /** Ağ yerine bellekteki sayfaları sunar; ETag'i gövdeden üretir ve If-None-Match'e 304 döner. */
+    private static class FakeSite extends CrawlerEngine {
+        final Map<String, String> pages = new HashMap<>();
+        final Set<String> failing = new HashSet<>();
+
+        FakeSite() throws IOException {
+            super(new SimpleMeterRegistry(), new MockEnvironment(), Duration.ofSeconds(1), "off", Path.of("unused"));
+            ReflectionTestUtils.setField(this, "userAgent", "test");
+            ReflectionTestUtils.setField(this, "requestTimeout", Duration.ofSeconds(1));
+        }
+
+        @Override
+        public HttpResponse<byte[]> execute(HttpRequest request) throws IOException {
+            String url = request.uri().toString();
+            if (failing.contains(url)) throw new IOException("bağlantı koptu: " + url);
+            String body = pages.get(url);
+            if (body == null) throw new HttpStatusException("HTTP 404", 404, url);
+
+            String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+            if (request.headers().firstValue("If-None-Match").filter(etag::equals).isPresent()) {
+                return new FakeResponse(request, 304, Map.of("ETag", List.of(etag)), new byte[0]);
+            }
+            return new FakeResponse(request, 200,
+                    Map.of("ETag", List.of(etag), "Content-Type", List.of("text/html; charset=utf-8")),
+                    body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private record FakeResponse(HttpRequest request, int statusCode, Map<String, List<String>> headerMap, byte[] body)
+            implements HttpResponse<byte[]> {
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(headerMap, (k, v) -> true);
+        }
+
+        @Override
+        public Optional<HttpResponse<byte[]>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
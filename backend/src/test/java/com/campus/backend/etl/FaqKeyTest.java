@@ -0,0 +1,24 @@
+package com.campus.backend.etl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FaqKeyTest {
+
+    @Test
+    void normalizesCaseDiacriticsAndPunctuation() {
+        assertEquals("e posta sifremi nasil sifirlarim", FaqKey.normalize("  E-posta ŞİFREMİ nasıl sıfırlarım?? "));
+        assertEquals(FaqKey.of("Ders kaydı ne zaman?"), FaqKey.of("ders kaydi ne zaman"));
+        assertEquals(FaqKey.of("Öğrenci belgesi\nnereden alınır?"), FaqKey.of("ogrenci belgesi nereden alinir"));
+    }
+
+    @Test
+    void keepsDistinctQuestionsApart() {
+        assertNotEquals(FaqKey.of("Ders kaydı ne zaman?"), FaqKey.of("Ders kaydı nerede?"));
+        assertNotEquals(FaqKey.of("BSM101 sınavı"), FaqKey.of("BSM102 sınavı"));
+        assertNull(FaqKey.of(" ?! "));
+    }
+}
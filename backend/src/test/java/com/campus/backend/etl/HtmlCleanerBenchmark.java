@@ -0,0 +1,73 @@
+package com.campus.backend.etl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HtmlCleaner: Jsoup DOM + regex yolu ile akışlı dönüştürücünün verim ve bellek ayırma karşılaştırması.
+ * Test fazında çalışmaz; elle:
+ *
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.campus.backend.etl.HtmlCleanerBenchmark"
+ * </pre>
+ *
+ * GC profiler çıktısındaki {@code gc.alloc.rate.norm} çağrı başına ayrılan bayttır.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlCleanerBenchmark {
+
+    private final HtmlCleaner cleaner = new HtmlCleaner();
+    private String[] pages;
+
+    @Setup
+    public void setup() {
+        // Tipik duyuru detayları (1-10 KB): test örnekleri + aynı tohumla üretilmiş sayfalar
+        Random random = new Random(7);
+        List<String> list = new ArrayList<>(HtmlCleanerTest.SAMPLES);
+        for (int i = 0; i < 64; i++) {
+            list.add("<div class=\"blog-post-inner\">" + HtmlCleanerTest.generate(random, 4) + "</div>");
+        }
+        pages = list.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void dom(Blackhole bh) {
+        for (String page : pages) bh.consume(HtmlCleaner.toTextWithDom(page));
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) {
+        for (String page : pages) bh.consume(cleaner.toText(page));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HtmlCleanerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,153 @@
+package com.campus.backend.etl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Akışlı dönüştürücü, eski Jsoup DOM yoluyla aynı metni üretmeli. */
+class HtmlCleanerTest {
+
+    private final HtmlCleaner cleaner = new HtmlCleaner();
+
+    // cs.sakarya detay sayfası (div.blog-post-inner) ve ogrwebmail SSS modalı biçimleri
+    static final List<String> SAMPLES = List.of(
+            "<p>Öğrencilerimizin dikkatine,</p>\n<p>2025-2026 Güz yarıyılı <strong>ders kayıtları</strong> "
+                    + "22.09.2025&nbsp;-&nbsp;26.09.2025 tarihleri arasında yapılacaktır.</p>\n"
+                    + "<p>Ayrıntılı bilgi için <a href=\"https://www.sakarya.edu.tr/akademik-takvim?x=1&amp;y=2\">tıklayınız</a>.</p>",
+            "<div class=\"blog-post-inner\"><h3>BSM101 Bütünleme Sınavı</h3><table class=\"table\">"
+                    + "<thead><tr><th>Ders</th><th>Tarih</th><th>Saat</th></tr></thead>"
+                    + "<tbody><tr><td>BSM101</td><td>24.01.2025</td><td>10:00</td></tr>"
+                    + "<tr><td>BSM102</td><td>25.01.2025</td><td>13:30</td></tr></tbody></table></div>",
+            "<p style=\"text-align: justify;\"><span style=\"font-size:12pt\">Staj başvuruları<br>"
+                    + "bölüm sekreterliğine<br/>teslim edilmelidir.</span></p><p>&nbsp;</p><ul><li>Staj formu</li>"
+                    + "<li>Sigorta belgesi&nbsp;</li></ul>Son tarih: <b>01.07.2025</b>",
+            "<p class=\"MsoNormal\">Sayın öğrenciler<o:p></o:p></p><p class=\"MsoNormal\">"
+                    + "<span lang=\"TR\">Harç ödemeleri &ndash; ilgili banka şubelerinden &#8220;öğrenci no&#8221; ile</span>"
+                    + "<o:p>&nbsp;</o:p></p>",
+            "<div><script type=\"text/javascript\">var x = '<p>gizli</p>'; if (a < b) {}</script>"
+                    + "<style>.a > p { color: red }</style>Görünür metin<!-- yorum <p>değil</p> --></div>",
+            "<div class=\"modal-body\"><p>E-posta şifrenizi unuttuysanız <a href='/sifre'>şifre sıfırlama</a> "
+                    + "sayfasını kullanın.</p><ol><li>Öğrenci numaranızı girin</li><li>Doğrulama kodunu girin</li></ol></div>",
+            "Fiyat: 100&euro; &amp; KDV &copy 2025 &notit; &#x41;&#66;&#128; &#0; & yalın &amp ampersand &lt;etiket&gt;",
+            "<pre>  satır 1\n\tsatır 2  </pre>sonra<textarea> a  &amp; b </textarea><title>Başlık</title>",
+            "<p>Birinci<p>İkinci<div>Üçüncü</div>dördüncü<span>beşinci</span><hr>altıncı<br>yedinci</p>",
+            "<div>a</div>b<div>c</div><span>d</span><div>e</div><custom>f</custom><p>g</p><!--x--><i>h</i>",
+            "  \n\t <p>​görünmez­tire\u000Bdikey</p> \n ",
+            "<img src=\"a.png\" alt=\"resim > 1\"><a title='x > y' href=x>bağlantı</a><input value=\"a>b\">son",
+            "<![CDATA[ ham <metin> ]]>sonra <!DOCTYPE html><?xml version=\"1.0\"?>bitti",
+            "< değil <3 a<b c </ d </> e</ f>",
+            "<div>iç <SPAN>büyük</SPAN> <STRONG>Harf</STRONG></DIV>Sonra",
+            "<table><tr><td>hücre1</td><td>hücre2</td></tr><tr><td colspan=2>uzun hücre</td></tr></table>tablo sonrası",
+            "<ul>\n  <li>madde 1</li>\n  <li>madde 2\n  </li>\n</ul>\n<p>\n  paragraf\n</p>",
+            "<iframe src=\"x\">iframe <b>içeriği</b></iframe><noscript>betik yok</noscript><xmp><b>ham</b> &amp;</xmp>"
+    );
+
+    @Test
+    void matchesDomCleanerOnSamples() {
+        for (String html : SAMPLES) {
+            assertEquals(HtmlCleaner.toTextWithDom(html), cleaner.toText(html), html);
+        }
+    }
+
+    @Test
+    void matchesDomCleanerOnGeneratedAnnouncements() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String html = generate(random, 3);
+            assertEquals(HtmlCleaner.toTextWithDom(html), cleaner.toText(html), html);
+        }
+    }
+
+    @Test
+    void handlesNullAndEmpty() {
+        assertEquals("", cleaner.toText(null));
+        assertEquals("", cleaner.toText(""));
+        assertEquals("", cleaner.toText("<p> &nbsp; </p>"));
+    }
+
+    // Üretilen HTML geçerli iç içe yapıdadır (p/h3/pre içinde blok yok, li yalnızca ul/ol içinde);
+    // ağaç kurucunun onardığı bozuk yapılar HtmlTextExtractor belgesindeki sınırın dışında kalır.
+    private static final String[] CONTAINERS = {"div", "section", "blockquote", "td"};
+    private static final String[] PHRASING_BLOCKS = {"p", "h3", "pre"};
+    private static final String[] INLINES = {"span", "strong", "b", "em", "a", "u", "i", "font", "o:p"};
+    private static final String[] WORDS = {
+            "Öğrenci", "kayıt", "22.09.2025", "BSM101", "harç", "ödemesi", "sınav", "(A-101)", "saat:", "10:00", "İŞLERİ",
+            "&nbsp;", "&amp;", "&ouml;", "&#8217;", "&uuml", "&quot;", "&lt;", "–", "ı", "ğ", "%50", "e-posta"
+    };
+    private static final String[] SPACES = {"", " ", "  ", "\n", "\t", " ", " \n "};
+    private static final String[] MISC = {"<br>", "<br/>", "<hr>", "<!-- yorum -->", "<img src=x.png>",
+            "<script>var a = 1 < 2;</script>", "<style>p{}</style>"};
+
+    static String generate(Random random, int depth) {
+        StringBuilder sb = new StringBuilder();
+        flow(sb, random, depth);
+        return sb.toString();
+    }
+
+    private static void flow(StringBuilder sb, Random random, int depth) {
+        int parts = 1 + random.nextInt(5);
+        for (int p = 0; p < parts; p++) {
+            switch (random.nextInt(depth > 0 ? 9 : 5)) {
+                case 0, 1, 2 -> phrasing(sb, random, 1);
+                case 3 -> sb.append(MISC[random.nextInt(MISC.length)]);
+                case 4 -> {
+                    String tag = PHRASING_BLOCKS[random.nextInt(PHRASING_BLOCKS.length)];
+                    sb.append('<').append(tag).append(random.nextBoolean() ? " class=\"a > b\"" : "").append('>');
+                    phrasing(sb, random, 1);
+                    sb.append("</").append(tag).append('>');
+                }
+                case 5, 6 -> {
+                    String tag = CONTAINERS[random.nextInt(CONTAINERS.length)];
+                    if (tag.equals("td")) {
+                        sb.append("<table><tr><td>");
+                        flow(sb, random, depth - 1);
+                        sb.append("</td><td>");
+                        phrasing(sb, random, 0);
+                        sb.append("</td></tr></table>");
+                    } else {
+                        sb.append('<').append(tag).append('>');
+                        flow(sb, random, depth - 1);
+                        sb.append("</").append(tag).append('>');
+                    }
+                }
+                default -> {
+                    String list = random.nextBoolean() ? "ul" : "ol";
+                    sb.append('<').append(list).append('>').append(SPACES[random.nextInt(SPACES.length)]);
+                    int items = 1 + random.nextInt(3);
+                    for (int k = 0; k < items; k++) {
+                        sb.append("<li>");
+                        flow(sb, random, depth - 1);
+                        sb.append("</li>").append(SPACES[random.nextInt(SPACES.length)]);
+                    }
+                    sb.append("</").append(list).append('>');
+                }
+            }
+        }
+    }
+
+    private static void phrasing(StringBuilder sb, Random random, int depth) {
+        int parts = 1 + random.nextInt(4);
+        for (int p = 0; p < parts; p++) {
+            int kind = random.nextInt(depth > 0 ? 6 : 3);
+            if (kind < 3) {
+                sb.append(SPACES[random.nextInt(SPACES.length)]);
+                int words = 1 + random.nextInt(6);
+                for (int w = 0; w < words; w++) {
+                    if (w > 0) sb.append(SPACES[1 + random.nextInt(SPACES.length - 1)]);
+                    sb.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                sb.append(SPACES[random.nextInt(SPACES.length)]);
+            } else if (kind < 5) {
+                String tag = INLINES[random.nextInt(INLINES.length)];
+                sb.append('<').append(tag).append(tag.equals("a") ? " href='/x?a=1&b=2'" : "").append('>');
+                phrasing(sb, random, depth - 1);
+                sb.append("</").append(tag).append('>');
+            } else {
+                sb.append(random.nextBoolean() ? "<br>" : "<img alt='x > y' src=a.png>");
+            }
+        }
+    }
+}
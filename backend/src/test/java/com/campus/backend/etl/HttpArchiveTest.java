@@ -0,0 +1,72 @@
+package com.campus.backend.etl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsAndReplaysAfterRoundTrip() throws Exception {
+        HttpArchive recording = new HttpArchive();
+        HttpTransport live = request -> response(request, 200,
+                Map.of("Content-Type", List.of("text/html; charset=utf-8"), "Set-Cookie", List.of("sid=1")),
+                "<p>" + request.method() + " " + request.uri().getPath() + "</p>");
+        HttpTransport transport = recording.recording(live);
+        transport.send(get("https://cs.sakarya.edu.tr/tr/duyuru/goruntule/liste/0/1"));
+        transport.send(HttpRequest.newBuilder(URI.create("https://ogrwebmail.sakarya.edu.tr/Home/SSSorular/2"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+
+        Path file = dir.resolve("archive.bin.gz");
+        recording.save(file);
+        HttpTransport replay = HttpArchive.load(file).replaying();
+
+        HttpResponse<byte[]> list = replay.send(get("https://cs.sakarya.edu.tr/tr/duyuru/goruntule/liste/0/1"));
+        assertEquals(200, list.statusCode());
+        assertEquals("<p>GET /tr/duyuru/goruntule/liste/0/1</p>", new String(list.body(), StandardCharsets.UTF_8));
+        assertEquals(Optional.of("text/html; charset=utf-8"), list.headers().firstValue("Content-Type"));
+        assertEquals(Optional.empty(), list.headers().firstValue("Set-Cookie"));
+
+        HttpResponse<byte[]> sss = replay.send(HttpRequest.newBuilder(URI.create("https://ogrwebmail.sakarya.edu.tr/Home/SSSorular/2"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+        assertEquals("<p>POST /Home/SSSorular/2</p>", new String(sss.body(), StandardCharsets.UTF_8));
+
+        // aynı URL farklı method ya da kayıtsız URL: 404
+        assertEquals(404, replay.send(get("https://ogrwebmail.sakarya.edu.tr/Home/SSSorular/2")).statusCode());
+        assertEquals(404, replay.send(get("https://cs.sakarya.edu.tr/tr/duyuru/goruntule/liste/0/2")).statusCode());
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static HttpResponse<byte[]> response(HttpRequest request, int status, Map<String, List<String>> headers, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        HttpHeaders httpHeaders = HttpHeaders.of(headers, (k, v) -> true);
+        return new HttpResponse<>() {
+            public int statusCode() { return status; }
+            public HttpRequest request() { return request; }
+            public Optional<HttpResponse<byte[]>> previousResponse() { return Optional.empty(); }
+            public HttpHeaders headers() { return httpHeaders; }
+            public byte[] body() { return bytes; }
+            public Optional<javax.net.ssl.SSLSession> sslSession() { return Optional.empty(); }
+            public URI uri() { return request.uri(); }
+            public HttpClient.Version version() { return HttpClient.Version.HTTP_1_1; }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.campus.backend.repository;
+
+import com.campus.backend.entity.Announcement;
+import com.campus.backend.entity.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 2000 duyuruluk ETL çalıştırması için satır/sn karşılaştırması:
+ * eski yol (satır başına SELECT + tekil INSERT) ile çok satırlı INSERT ... RETURNING.
+ *
+ * Gerçek PostgreSQL ister; ayrı bir şemada (etl_bench) çalışır ve sonunda şemayı siler:
+ *   ETL_BENCH_JDBC_URL=jdbc:postgresql://localhost:5432/campus ETL_BENCH_USER=... ETL_BENCH_PASSWORD=... \
+ *   mvn -B test -Dtest=AnnouncementBulkRepositoryBenchmarkTest
+ */
+@EnabledIfEnvironmentVariable(named = "ETL_BENCH_JDBC_URL", matches = ".+")
+class AnnouncementBulkRepositoryBenchmarkTest {
+
+    private static final int ROWS = 2000;
+    private static final int FLUSH_SIZE = 25; // app.etl.flush-size varsayılanı
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                System.getenv("ETL_BENCH_JDBC_URL"),
+                System.getenv().getOrDefault("ETL_BENCH_USER", "postgres"),
+                System.getenv().getOrDefault("ETL_BENCH_PASSWORD", ""),
+                true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop schema if exists etl_bench cascade");
+        jdbc.execute("create schema etl_bench");
+        jdbc.execute("set search_path to etl_bench");
+        jdbc.execute("""
+                create table announcements (
+                    id bigint generated by default as identity primary key,
+                    source_id integer not null,
+                    external_id varchar(256) not null,
+                    title text not null,
+                    content text not null,
+                    url text,
+                    category varchar(255),
+                    published_at timestamp(6) with time zone,
+                    scraped_at timestamp(6) with time zone not null,
+                    lang varchar(8),
+                    content_hash varchar(64),
+                    unique (source_id, external_id)
+                )""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("drop schema if exists etl_bench cascade");
+        dataSource.destroy();
+    }
+
+    @Test
+    void bulkInsertVsRowByRow() {
+        List<Announcement> rows = announcements(1, ROWS);
+
+        // eski yol: her öğe için exists sorgusu + tekil INSERT (Hibernate IDENTITY davranışı)
+        long start = System.nanoTime();
+        for (Announcement a : rows) {
+            Integer exists = jdbc.queryForObject(
+                    "select count(*) from announcements where source_id = ? and external_id = ?",
+                    Integer.class, a.getSource().getId(), a.getExternalId());
+            if (exists != null && exists > 0) continue;
+            jdbc.queryForObject(
+                    "insert into announcements (source_id, external_id, title, content, url, category, published_at, scraped_at, lang) "
+                            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?) returning id",
+                    Long.class, a.getSource().getId(), a.getExternalId(), a.getTitle(), a.getContent(), a.getUrl(),
+                    a.getCategory(), null, Timestamp.from(a.getScrapedAt()), a.getLang());
+        }
+        double rowByRow = report("satır satır", start);
+
+        // yeni yol: id kümesi tek sorguyla + flush-size'lık paketlerle çok satırlı INSERT
+        AnnouncementBulkRepository bulk = new AnnouncementBulkRepository(jdbc);
+        List<Announcement> fresh = announcements(2, ROWS);
+        start = System.nanoTime();
+        List<String> known = jdbc.queryForList(
+                "select external_id from announcements where source_id = ?", String.class, 2);
+        assertEquals(0, known.size());
+        int inserted = 0;
+        for (int from = 0; from < fresh.size(); from += FLUSH_SIZE) {
+            inserted += bulk.insertAll(fresh.subList(from, Math.min(fresh.size(), from + FLUSH_SIZE)));
+        }
+        double batched = report("toplu (" + FLUSH_SIZE + "'lik)", start);
+
+        assertEquals(ROWS, inserted);
+        fresh.forEach(a -> assertNotNull(a.getId()));
+        System.out.printf("Hızlanma: %.1fx%n", batched / rowByRow);
+
+        // tekrar çalıştırma: çakışan satırlar atlanır, id'leri null kalır
+        List<Announcement> again = announcements(2, 3);
+        assertEquals(0, bulk.insertAll(again));
+        again.forEach(a -> assertNull(a.getId()));
+    }
+
+    private static double report(String label, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double rate = ROWS / seconds;
+        System.out.printf("%-20s %d satır, %.2f sn, %.0f satır/sn%n", label, ROWS, seconds, rate);
+        return rate;
+    }
+
+    private static List<Announcement> announcements(int sourceId, int n) {
+        Source source = new Source();
+        source.setId(sourceId);
+
+        List<Announcement> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Announcement a = new Announcement();
+            a.setSource(source);
+            a.setExternalId("bench-" + i);
+            a.setTitle("Duyuru " + i);
+            a.setContent("Öğrenci işleri duyurusu " + i + ". Kayıt yenileme ve harç ödemeleri akademik takvime göre yapılacaktır.");
+            a.setUrl("https://example.edu.tr/duyuru/" + i);
+            a.setCategory("genel");
+            a.setScrapedAt(Instant.now());
+            a.setLang("tr");
+            out.add(a);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,174 @@
+package com.campus.backend.service;
+
+import com.campus.backend.entity.Conversation;
+import com.campus.backend.entity.ConversationMessage;
+import com.campus.backend.entity.ConversationMessageRole;
+import com.campus.backend.repository.ConversationMessageBulkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversationMessageWriterTest {
+
+    private final FakeDb db = new FakeDb();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConversationHistoryCache cache =
+            new ConversationHistoryCache(registry, true, 12, 64, Duration.ofMinutes(30));
+    private ConversationMessageWriter writer;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (writer != null) writer.shutdown();
+    }
+
+    @Test
+    void readYourWritesWhileWriterCommits() {
+        writer = writer(10_000, 7, Duration.ofMillis(1), 3);
+        writer.start();
+        Conversation conv = conversation(1L);
+
+        for (int i = 0; i < 400; i++) {
+            writer.enqueue(conv, ConversationMessageRole.USER, "m" + i);
+            // yazıcı aynı anda commit ediyor: her mesaj tam bir kez görünmeli
+            List<ConversationMessage> seen = writer.withPending(1L, 1000, db::committed);
+            assertEquals(i + 1, seen.size());
+            Set<String> contents = new HashSet<>();
+            for (ConversationMessage m : seen) assertTrue(contents.add(m.getContent()), "tekrar: " + m.getContent());
+            assertEquals("m" + i, seen.get(seen.size() - 1).getContent());
+        }
+    }
+
+    @Test
+    void fullQueueWritesOnCallerThread() {
+        writer = writer(1, 200, Duration.ofMillis(200), 3); // yazıcı thread'i başlatılmadı
+        Conversation conv = conversation(1L);
+
+        writer.enqueue(conv, ConversationMessageRole.USER, "a");      // kuyrukta
+        writer.enqueue(conv, ConversationMessageRole.ASSISTANT, "b"); // kuyruk dolu
+        writer.enqueue(conv, ConversationMessageRole.USER, "c");
+
+        assertEquals(List.of("b", "c"), db.committed().stream().map(ConversationMessage::getContent).toList());
+        assertEquals(Set.of(Thread.currentThread().getName()), db.writerThreads);
+        assertEquals(List.of("a", "b", "c"),
+                writer.withPending(1L, 10, db::committed).stream().map(ConversationMessage::getContent).toList());
+    }
+
+    @Test
+    void shutdownDrainsQueueAndLateMessagesAreWritten() throws InterruptedException {
+        writer = writer(10_000, 1000, Duration.ofHours(1), 3);
+        writer.start();
+        Conversation conv = conversation(1L);
+        for (int i = 0; i < 50; i++) writer.enqueue(conv, ConversationMessageRole.USER, "m" + i);
+
+        writer.shutdown();
+        assertEquals(50, db.committed().size());
+
+        writer.enqueue(conv, ConversationMessageRole.ASSISTANT, "late");
+        assertEquals(51, db.committed().size());
+        assertEquals(51, writer.withPending(1L, 100, db::committed).size());
+    }
+
+    @Test
+    void droppedBatchLeavesPendingAndEvictsHistoryCache() {
+        db.failing = true;
+        writer = writer(1, 200, Duration.ofMillis(200), 1);
+        Conversation conv = conversation(1L);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, 5, n -> { loads.incrementAndGet(); return List.of(); });
+
+        writer.enqueue(conv, ConversationMessageRole.USER, "a");
+        writer.enqueue(conv, ConversationMessageRole.ASSISTANT, "b"); // kuyruk dolu, yazım başarısız
+
+        assertEquals(List.of("a"),
+                writer.withPending(1L, 10, db::committed).stream().map(ConversationMessage::getContent).toList());
+        cache.get(1L, 5, n -> { loads.incrementAndGet(); return List.of(); });
+        assertEquals(2, loads.get());
+        assertEquals(1.0, registry.get("conversation.write-behind.dropped").counter().count());
+    }
+
+    private ConversationMessageWriter writer(int capacity, int maxBatch, Duration maxDelay, int maxAttempts) {
+        return new ConversationMessageWriter(db, cache, new NoopTransactionManager(), registry,
+                true, capacity, maxBatch, maxDelay, maxAttempts);
+    }
+
+    private static Conversation conversation(Long id) {
+        Conversation c = new Conversation();
+        c.setId(id);
+        return c;
+    }
+
+    /** Satırları commit'te görünür yapan sahte tablo; DB'den okunan kopyalar ayrı nesnelerdir. */
+    private static class FakeDb extends ConversationMessageBulkRepository {
+        private final List<ConversationMessage> rows = new ArrayList<>();
+        final Set<String> writerThreads = new HashSet<>();
+        volatile boolean failing;
+
+        FakeDb() {
+            super(null);
+        }
+
+        @Override
+        public void insertAll(List<ConversationMessage> batch) {
+            if (failing) throw new IllegalStateException("db kapalı");
+            List<ConversationMessage> copies = new ArrayList<>();
+            for (ConversationMessage m : batch) {
+                ConversationMessage copy = new ConversationMessage();
+                copy.setConversation(m.getConversation());
+                copy.setRole(m.getRole());
+                copy.setContent(m.getContent());
+                copy.setCreatedAt(m.getCreatedAt());
+                copies.add(copy);
+            }
+            String thread = Thread.currentThread().getName();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    synchronized (rows) {
+                        rows.addAll(copies);
+                        writerThreads.add(thread);
+                    }
+                }
+            });
+        }
+
+        List<ConversationMessage> committed() {
+            synchronized (rows) {
+                return new ArrayList<>(rows);
+            }
+        }
+    }
+
+    private static class NoopTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.campus.backend.vector;
+
+import com.campus.backend.entity.Announcement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bm25Index.search gecikmesi (announcements + SSS ölçeğinde korpus, 3000 duyuru).
+ * Hedef: lexical bacak sorgu başına 1 ms'den az eklemeli. Test fazında çalışmaz; elle:
+ *
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.campus.backend.vector.Bm25IndexBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Bm25IndexBenchmark {
+
+    private static final String[] WORDS = {
+            "öğrenci", "kayıt", "yenileme", "harç", "ödeme", "sınav", "vize", "final", "bütünleme",
+            "ders", "danışman", "onay", "staj", "başvuru", "form", "dilekçe", "burs", "yurt", "mezuniyet",
+            "transkript", "akademik", "takvim", "dönem", "güz", "bahar", "yaz", "okulu", "program", "bölüm",
+            "fakülte", "duyuru", "tarih", "saat", "salon", "çevrimiçi", "sistem", "e-posta", "belge", "teslim"
+    };
+
+    private Bm25Index index;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        List<Announcement> corpus = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            corpus.add(Bm25IndexTest.announcement(i, randomText(rnd, 8) + " BSM" + (100 + i % 400), randomText(rnd, 250)));
+        }
+        index = new Bm25Index(null);
+        index.addAll(corpus);
+
+        queries = new String[200];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomText(rnd, 5) + " BSM" + (100 + i);
+        }
+    }
+
+    @Benchmark
+    public List<Bm25Index.Hit> search() {
+        String q = queries[next];
+        next = (next + 1) % queries.length;
+        return index.search(q, 8);
+    }
+
+    private static String randomText(Random rnd, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(Bm25IndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
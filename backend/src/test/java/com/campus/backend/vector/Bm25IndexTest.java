@@ -0,0 +1,92 @@
+package com.campus.backend.vector;
+
+import com.campus.backend.entity.Announcement;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    @Test
+    void exactCourseCodeAndDateRankFirst() {
+        Bm25Index index = new Bm25Index(null);
+        index.addAll(List.of(
+                announcement(1, "Vize Sınav Programı", "Tüm derslerin vize sınavları akademik takvime göre yapılacaktır."),
+                announcement(2, "BSM101 Bütünleme Sınavı", "BSM101 bütünleme sınavı 24.01.2025 tarihinde saat 10:00'da yapılacaktır."),
+                announcement(3, "Staj Başvuruları", "Staj başvuru formları bölüm sekreterliğine teslim edilmelidir.")
+        ));
+
+        List<Bm25Index.Hit> hits = index.search("bsm101 bütünleme", 3);
+        assertEquals(2L, hits.get(0).announcementId());
+        assertEquals(1.0, hits.get(0).coverage());
+
+        hits = index.search("24.01.2025 sınavı", 3);
+        assertEquals(2L, hits.get(0).announcementId());
+
+        hits = index.search("staj basvurulari", 3);
+        assertEquals(3L, hits.get(0).announcementId());
+    }
+
+    @Test
+    void updatedDocumentsArePrunedFromPostings() {
+        Bm25Index index = new Bm25Index(null);
+        List<Announcement> corpus = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) corpus.add(announcement(i, "Duyuru " + i, "eski" + i + " içerik"));
+        index.addAll(corpus);
+
+        for (int round = 1; round <= 3; round++) {
+            List<Announcement> updated = new ArrayList<>();
+            for (int i = 1; i <= 100; i++) updated.add(announcement(i, "Duyuru " + i, "yeni" + round + "x" + i + " içerik"));
+            index.addAll(updated);
+        }
+
+        assertEquals(100, index.size());
+        assertTrue(index.docCount() <= 125, "doc sayısı: " + index.docCount());
+        assertTrue(index.search("eski42", 5).isEmpty());
+        List<Bm25Index.Hit> hits = index.search("yeni3x42", 5);
+        assertEquals(1, hits.size());
+        assertEquals(42L, hits.get(0).announcementId());
+        assertEquals("yeni3x42 içerik", hits.get(0).text());
+    }
+
+    @Test
+    void removedDocumentsDoNotCountInDocumentFrequency() {
+        // compaction eşiğinin altında: eski doc'lar postings'te kalır ama idf'i etkilememeli
+        Bm25Index updated = new Bm25Index(null);
+        Bm25Index fresh = new Bm25Index(null);
+        List<Announcement> before = new ArrayList<>();
+        List<Announcement> after = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            before.add(announcement(i, "Duyuru " + i, "sınav programı " + i));
+            after.add(announcement(i, "Duyuru " + i, (i <= 15 ? "staj başvurusu " : "sınav programı ") + i));
+        }
+        updated.addAll(before);
+        updated.addAll(after);
+        fresh.addAll(after);
+
+        assertTrue(updated.docCount() > fresh.docCount());
+        for (String query : List.of("sınav", "staj başvurusu", "programı 18")) {
+            List<Bm25Index.Hit> got = updated.search(query, 20);
+            List<Bm25Index.Hit> expected = fresh.search(query, 20);
+            assertEquals(expected.size(), got.size(), query);
+            for (int i = 0; i < got.size(); i++) {
+                assertEquals(expected.get(i).announcementId(), got.get(i).announcementId(), query);
+                assertEquals(expected.get(i).score(), got.get(i).score(), 1e-6, query);
+            }
+        }
+    }
+
+    static Announcement announcement(long id, String title, String content) {
+        Announcement a = new Announcement();
+        a.setId(id);
+        a.setTitle(title);
+        a.setContent(content);
+        a.setPublishedAt(Instant.now());
+        return a;
+    }
+}
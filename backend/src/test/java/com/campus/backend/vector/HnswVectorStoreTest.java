@@ -0,0 +1,151 @@
+package com.campus.backend.vector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswVectorStoreTest {
+
+    private static final int DIM = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recallAfterUpdateAndDelete() {
+        // compact-ratio 1.0: tombstone'lar grafikte kalır, arama onlara rağmen topK canlı döndürmeli
+        HnswVectorStore store = store(dir.resolve("a.hnsw"), 1.0, 64L << 20);
+        Random rnd = new Random(7);
+        Map<String, float[]> live = new HashMap<>();
+        upsert(store, live, rnd, 0, 600);
+        upsert(store, live, rnd, 0, 300);                 // ilk 300 id yeni vektörle güncellenir
+        List<String> removed = new ArrayList<>();
+        for (int i = 300; i < 450; i++) removed.add("d" + i);
+        store.delete(removed);
+        removed.forEach(live::remove);
+
+        assertEquals(450, store.liveCount());
+        assertEquals(900, store.nodeCount());
+        assertRecall(store, live, rnd);
+    }
+
+    @Test
+    void compactsOnceTombstoneRatioPassesThreshold() {
+        HnswVectorStore store = store(dir.resolve("b.hnsw"), 0.2, 64L << 20);
+        Random rnd = new Random(11);
+        Map<String, float[]> live = new HashMap<>();
+        upsert(store, live, rnd, 0, 400);
+        for (int round = 0; round < 5; round++) upsert(store, live, rnd, 0, 200);
+
+        assertEquals(400, store.liveCount());
+        assertTrue(store.nodeCount() < 400 * 1.25, "düğüm sayısı: " + store.nodeCount());
+        assertRecall(store, live, rnd);
+    }
+
+    @Test
+    void flushAndLoadRoundTrip() throws Exception {
+        Path file = dir.resolve("c.hnsw");
+        long chunk = 4096; // pencere sınırları değer/metin ortasına düşsün
+        HnswVectorStore store = store(file, 1.0, chunk);
+        Random rnd = new Random(3);
+        Map<String, float[]> live = new HashMap<>();
+        upsert(store, live, rnd, 0, 300);
+        store.delete(List.of("d5", "d6"));
+        live.remove("d5");
+        live.remove("d6");
+
+        // zamanlanmış flush ile kapanış flush'ı aynı anda: dosya bozulmamalı
+        CompletableFuture<Void> other = CompletableFuture.runAsync(store::flush);
+        store.flush();
+        other.get();
+
+        HnswVectorStore loaded = store(file, 1.0, chunk);
+        assertEquals(store.nodeCount(), loaded.nodeCount());
+        assertEquals(298, loaded.liveCount());
+        for (int i = 0; i < 20; i++) {
+            float[] q = randomVector(rnd);
+            assertEquals(store.search(q, 5), loaded.search(q, 5));
+        }
+        DocumentMatch hit = loaded.search(live.get("d42"), 1).get(0);
+        assertEquals("doc 42", hit.text());
+        assertEquals("d42", hit.metadata().get("id"));
+    }
+
+    private static HnswVectorStore store(Path file, double compactRatio, long chunk) {
+        return new HnswVectorStore(new ObjectMapper(), file.toString(), 16, 200, 64, compactRatio, chunk);
+    }
+
+    private static void upsert(HnswVectorStore store, Map<String, float[]> live, Random rnd, int from, int to) {
+        List<String> ids = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        List<Map<String, Object>> metas = new ArrayList<>();
+        List<String> docs = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            float[] v = randomVector(rnd);
+            ids.add("d" + i);
+            vectors.add(v);
+            metas.add(Map.of("id", "d" + i));
+            docs.add("doc " + i);
+            live.put("d" + i, v);
+        }
+        store.upsertAll(ids, vectors, metas, docs);
+    }
+
+    /** Her sorguda topK canlı sonuç, silinmiş/eski sürüm yok ve kaba kuvvete göre recall@10 yüksek. */
+    private static void assertRecall(HnswVectorStore store, Map<String, float[]> live, Random rnd) {
+        int found = 0;
+        int queries = 50;
+        for (int i = 0; i < queries; i++) {
+            float[] q = randomVector(rnd);
+            List<DocumentMatch> hits = store.search(q, 10);
+            assertEquals(10, hits.size());
+
+            Set<Object> got = new HashSet<>();
+            for (DocumentMatch h : hits) {
+                Object id = h.metadata().get("id");
+                assertTrue(live.containsKey(id), "canlı olmayan sonuç: " + id);
+                assertTrue(got.add(id), "tekrarlanan sonuç: " + id);
+            }
+            for (String id : bruteForce(live, q, 10)) if (got.contains(id)) found++;
+        }
+        double recall = found / (double) (queries * 10);
+        assertTrue(recall >= 0.9, "recall@10: " + recall);
+    }
+
+    private static List<String> bruteForce(Map<String, float[]> live, float[] q, int k) {
+        return live.entrySet().stream()
+                .sorted((a, b) -> Double.compare(cosine(b.getValue(), q), cosine(a.getValue(), q)))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+
+    private static float[] randomVector(Random rnd) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) v[i] = (float) rnd.nextGaussian();
+        return v;
+    }
+}